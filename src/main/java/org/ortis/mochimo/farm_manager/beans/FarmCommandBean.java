@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (C) 2018 Ortis (cao.ortis.org@gmail.com)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+
+package org.ortis.mochimo.farm_manager.beans;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.ortis.mochimo.farm_manager.http.FarmCommandTask;
+import org.ortis.mochimo.farm_manager.http.FarmCommandTask.MinerProgress;
+import org.ortis.mochimo.farm_manager.http.FarmCommandTask.State;
+
+/**
+ * Bean of {@link FarmCommandTask} progress
+ * 
+ * @author Ortis <br>
+ *         2018 Sep 26 8:21:40 PM <br>
+ */
+public class FarmCommandBean
+{
+	public final Long id;
+	public final String command;
+	public final Boolean completed;
+	public final Boolean aborted;
+	public final Integer queued;
+	public final Integer running;
+	public final Integer recovering;
+	public final Integer ok;
+	public final Integer failed;
+	public final Integer skipped;
+	public final Map<String, MinerProgressBean> miners;
+
+	public static class MinerProgressBean
+	{
+		public final String state;
+		public final String error;
+
+		public MinerProgressBean(final MinerProgress progress)
+		{
+			this.state = progress.getState().name();
+			this.error = progress.getError();
+		}
+	}
+
+	public FarmCommandBean(final FarmCommandTask task)
+	{
+		this.id = task.getId();
+		this.command = task.getCommand().name();
+		this.completed = task.isCompleted();
+		this.aborted = task.isAborted();
+		this.queued = task.count(State.Queued);
+		this.running = task.count(State.Running);
+		this.recovering = task.count(State.Recovering);
+		this.ok = task.count(State.Ok);
+		this.failed = task.count(State.Failed);
+		this.skipped = task.count(State.Skipped);
+
+		this.miners = new LinkedHashMap<>();
+		for (final Map.Entry<String, MinerProgress> entry : task.getProgress().entrySet())
+			this.miners.put(entry.getKey(), new MinerProgressBean(entry.getValue()));
+	}
+}
@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * Copyright (C) 2018 Ortis (cao.ortis.org@gmail.com)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+
+package org.ortis.mochimo.farm_manager.beans;
+
+import org.ortis.mochimo.farm_manager.farm.miner.HostLimiter;
+
+/**
+ * Bean of {@link HostLimiter}
+ * 
+ * @author Ortis <br>
+ *         2018 Sep 25 10:02:17 PM <br>
+ */
+public class HostLimiterBean
+{
+	public final String host;
+	public final Integer concurrency;
+	public final Integer inFlight;
+	public final Integer queued;
+	public final Long acquired;
+	public final Long averageWait;
+	public final Long maxWait;
+
+	public HostLimiterBean(final HostLimiter limiter)
+	{
+		this.host = limiter.getHost();
+		this.concurrency = limiter.getConcurrency();
+		this.inFlight = limiter.getInFlight();
+		this.queued = limiter.getQueued();
+		this.acquired = limiter.getAcquired();
+		this.averageWait = limiter.getAverageWait().toMillis();
+		this.maxWait = limiter.getMaxWait().toMillis();
+	}
+}
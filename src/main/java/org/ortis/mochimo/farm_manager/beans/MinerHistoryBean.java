@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright (C) 2018 Ortis (cao.ortis.org@gmail.com)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+package org.ortis.mochimo.farm_manager.beans;
+
+import org.ortis.mochimo.farm_manager.farm.miner.MinerHistory;
+import org.ortis.mochimo.farm_manager.farm.miner.MinerHistory.Samples;
+
+/**
+ * Bean of {@link MinerHistory} samples. Unknown values are null
+ * 
+ * @author Ortis <br>
+ *         2018 Oct 01 10:05:37 PM <br>
+ */
+public class MinerHistoryBean
+{
+	public final String minerId;
+	public final long [] times;
+	public final Float [] hps;
+	public final Float [] cpu;
+	public final Integer [] height;
+	public final Integer [] solved;
+
+	public MinerHistoryBean(final String minerId, final Samples samples)
+	{
+		this.minerId = minerId;
+
+		final int size = samples.size();
+		this.times = new long[size];
+		this.hps = new Float[size];
+		this.cpu = new Float[size];
+		this.height = new Integer[size];
+		this.solved = new Integer[size];
+		for (int i = 0; i < size; i++)
+		{
+			this.times[i] = samples.getTime(i);
+			this.hps[i] = Float.isNaN(samples.getHps(i)) ? null : samples.getHps(i);
+			this.cpu[i] = Float.isNaN(samples.getCpu(i)) ? null : samples.getCpu(i);
+			this.height[i] = samples.getHeight(i) < 0 ? null : samples.getHeight(i);
+			this.solved[i] = samples.getSolved(i) < 0 ? null : samples.getSolved(i);
+		}
+	}
+}
@@ -17,8 +17,8 @@ package org.ortis.mochimo.farm_manager.beans;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
+import java.util.TreeMap;
 
 import org.ortis.mochimo.farm_manager.farm.miner.MinerStatistics;
 
@@ -36,66 +36,38 @@ public class MinerStatisticsBean
 	public final String minerId;
 	public final String datetime;
 	public final Float cpu;
+	public final Map<String, Float> processCpu;
 	public final List<String> processes;
 	public final Boolean gomochi;
 	public final Boolean listen;
 	public final Boolean solving;
 	public final Boolean syncing;
+	public final Boolean reachable;
 	public final Double hps;
 	public final String block;
-	public final Integer height;
-	public final Integer solved;
-	public final Integer difficulty;
+	public final Long height;
+	public final Long solved;
+	public final Long difficulty;
 
 	public MinerStatisticsBean(final MinerStatistics statistics)
 	{
 		this.minerId = statistics.getMinerId();
 		this.datetime = DATE_TIME_FORMATTER.format(statistics.getTime());
 		this.cpu = statistics.getCpu();
+		this.processCpu = new TreeMap<>(statistics.getProcessCpu());
 		this.processes = new ArrayList<>(statistics.getProcesses());
 
 		this.gomochi = statistics.isGomochi();
 		this.listen = statistics.isListen();
 		this.solving = statistics.isSolving();
 		this.syncing = statistics.isSyncing();
+		this.reachable = statistics.isReachable();
 
-		Double hps = null;
-		String block = null;
-		Integer height = null;
-		Integer solved = null;
-		Integer difficulty = null;
-
-		for (final Map.Entry<String, String> entry : statistics.getStatistics().entrySet())
-		{
-			final String keyUpper = entry.getKey().toUpperCase(Locale.ENGLISH);
-			if (keyUpper.contains("HAIKU/SECOND"))
-				hps = Double.parseDouble(entry.getValue());
-			else if (keyUpper.contains("SOLVED"))
-				solved = Integer.parseInt(entry.getValue());
-			else if (keyUpper.contains("DIFFICULTY"))
-				difficulty = Integer.parseInt(entry.getValue());
-			else if (keyUpper.contains("BLOCK"))
-				block = entry.getValue();
-			else if (keyUpper.contains("HEIGHT"))
-				height = Integer.parseInt(entry.getValue());
-
-		}
-
-		if (statistics.getStatistics().isEmpty())
-		{
-			this.hps = null;
-			this.block = null;
-			this.height = null;
-			this.solved = null;
-			this.difficulty = null;
-		} else
-		{
-			this.hps = hps;
-			this.block = block;
-			this.height = height;
-			this.solved = solved;
-			this.difficulty = difficulty;
-		}
+		this.hps = statistics.hasHps() ? statistics.getHps() : null;
+		this.block = statistics.getBlock();
+		this.height = statistics.hasHeight() ? statistics.getHeight() : null;
+		this.solved = statistics.hasSolved() ? statistics.getSolved() : null;
+		this.difficulty = statistics.hasDifficulty() ? statistics.getDifficulty() : null;
 	}
 
 }
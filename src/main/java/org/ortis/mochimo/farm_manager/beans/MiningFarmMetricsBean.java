@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Copyright (C) 2018 Ortis (cao.ortis.org@gmail.com)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+
+package org.ortis.mochimo.farm_manager.beans;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.ortis.mochimo.farm_manager.farm.MiningFarm;
+import org.ortis.mochimo.farm_manager.farm.miner.HostLimiter;
+
+/**
+ * Bean of the scheduling, SSH and restart budget metrics of a {@link MiningFarm}. They change on every request and are not part of the cached status
+ * 
+ * @author Ortis <br>
+ *         2018 Oct 17 9:12:05 PM <br>
+ */
+public class MiningFarmMetricsBean
+{
+	public final Integer statisticsQueueDepth;
+	public final Long statisticsSchedulingLag;
+	public final List<HostLimiterBean> hosts;
+	public final Integer availableRestarts;
+	public final Integer deferredRestarts;
+
+	public MiningFarmMetricsBean(final MiningFarm farm)
+	{
+		this.statisticsQueueDepth = farm.getStatisticsUpdateScheduler().getQueueDepth();
+		this.statisticsSchedulingLag = farm.getStatisticsUpdateScheduler().getLag().toMillis();
+		this.hosts = new ArrayList<>();
+		for (final HostLimiter limiter : farm.getHostLimiters().getLimiters().values())
+			this.hosts.add(new HostLimiterBean(limiter));
+		this.availableRestarts = farm.getRestartBudget().getAvailable();
+		this.deferredRestarts = farm.getRestartBudget().getDeferred();
+	}
+}
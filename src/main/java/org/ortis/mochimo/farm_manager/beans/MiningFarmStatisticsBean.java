@@ -24,7 +24,7 @@ public class MiningFarmStatisticsBean
 {
 
 	public final Double totalHPS;
-	public final Integer totalSolved;
+	public final Long totalSolved;
 	public final Integer solvingMiners;
 	public final Integer runningMiners;
 
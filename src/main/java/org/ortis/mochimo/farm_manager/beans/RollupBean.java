@@ -0,0 +1,55 @@
+/*******************************************************************************
+ * Copyright (C) 2018 Ortis (cao.ortis.org@gmail.com)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+package org.ortis.mochimo.farm_manager.beans;
+
+import org.ortis.mochimo.farm_manager.farm.miner.RollupSeries;
+import org.ortis.mochimo.farm_manager.farm.miner.RollupSeries.Buckets;
+
+/**
+ * Bean of {@link RollupSeries} buckets
+ * 
+ * @author Ortis <br>
+ *         2018 Oct 02 10:21:44 PM <br>
+ */
+public class RollupBean
+{
+	public final String minerId;
+	public final Long resolution;
+	public final long [] times;
+	public final float [] min;
+	public final float [] max;
+	public final float [] avg;
+	public final float [] last;
+
+	public RollupBean(final String minerId, final Buckets buckets)
+	{
+		this.minerId = minerId;
+		this.resolution = buckets.getWidth() / 1000;
+
+		final int size = buckets.size();
+		this.times = new long[size];
+		this.min = new float[size];
+		this.max = new float[size];
+		this.avg = new float[size];
+		this.last = new float[size];
+		for (int i = 0; i < size; i++)
+		{
+			this.times[i] = buckets.getTime(i);
+			this.min[i] = buckets.getMin(i);
+			this.max[i] = buckets.getMax(i);
+			this.avg[i] = buckets.getAvg(i);
+			this.last[i] = buckets.getLast(i);
+		}
+	}
+}
@@ -24,7 +24,6 @@ import java.time.LocalDateTime;
 import java.util.Locale;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
@@ -41,6 +40,7 @@ import org.ortis.mochimo.farm_manager.http.HttpServer;
 import org.ortis.mochimo.farm_manager.log.LogFactory;
 import org.ortis.mochimo.farm_manager.log.LogListener;
 import org.ortis.mochimo.farm_manager.utils.Host;
+import org.ortis.mochimo.farm_manager.utils.Threads;
 import org.ortis.mochimo.farm_manager.utils.Utils;
 
 import picocli.CommandLine.Command;
@@ -66,21 +66,48 @@ public class Start implements Callable<Void>
 	@Option(names = { "-sh", "--statistics-heartbeat" }, paramLabel = "statistics_heartbeat", description = "Delay between statistic computation in seconds")
 	private int statHeartbeat = 60;
 
+	@Option(names = { "-sj", "--statistics-jitter" }, paramLabel = "statistics_jitter", description = "Random spread of statistic computation, as a fraction of the heartbeat (0 to 1)")
+	private double statJitter = 0.2;
+
+	@Option(names = { "-sb", "--statistics-backoff" }, paramLabel = "statistics_backoff", description = "Adaptive statistic computation: stable miners are polled up to statistics_backoff times less often, changing miners up to statistics_backoff times more often (1 to disable)")
+	private int statBackoff = 4;
+
 	@Option(names = { "-sp", "--statistics-parallelism" }, paramLabel = "statistics_parallelism", description = "Number of statistics computing thread")
 	private int statParallelism = 20;
 
-	@Option(names = { "-wh", "--watchdog-heartbeat" }, paramLabel = "watchdog_heartbeat", description = "Delay between watchdog check seconds")
+	@Option(names = { "-wh", "--watchdog-heartbeat" }, paramLabel = "watchdog_heartbeat", description = "Delay between watchdog check seconds. The watchdog checks the policies right after a statistic computation, on the same probe")
 	private int watchDogHeartbeat = 60;
 
-	@Option(names = { "-wp", "--watchdog-parallelism" }, paramLabel = "watchdog_parallelism", description = "Number of watchdog policy checking thread")
-	private int watchDogParallelism = 5;
+	@Option(names = { "-of", "--observation-freshness" }, paramLabel = "observation_freshness", description = "Maximum age in seconds of the last miner probe reused by the watchdog when the statistic computation preceding the check failed. Older probes fall back to a light process check. Defaults to, and cannot exceed, watchdog_heartbeat")
+	private Integer observationFreshness = null;
+
+	@Option(names = { "-hc", "--host-concurrency" }, paramLabel = "host_concurrency", description = "Maximum number of concurrent SSH commands per host")
+	private int hostConcurrency = 4;
+
+	@Option(names = { "-hr", "--host-rate" }, paramLabel = "host_rate", description = "Maximum number of SSH commands per second per host")
+	private double hostRate = 5;
+
+	@Option(names = { "-rb", "--restart-budget" }, paramLabel = "restart_budget", description = "Maximum number of policy restarts in the farm over the restart window")
+	private int restartBudget = 5;
+
+	@Option(names = { "-rw", "--restart-window" }, paramLabel = "restart_window", description = "Sliding window of the restart budget in seconds")
+	private int restartWindow = 600;
+
+	@Option(names = { "-hs", "--history-size" }, paramLabel = "history_size", description = "Number of statistics samples kept in memory per miner")
+	private int historySize = 1440;
 
 	@Option(names = { "-ch", "--consensus-heartbeat" }, paramLabel = "consensus_heartbeat", description = "Delay between consensus computation in seconds")
 	private int consensusHeartbeat = 60;
 
+	@Option(names = { "-cp", "--command-parallelism" }, paramLabel = "command_parallelism", description = "Number of miners processed at the same time by a farm command")
+	private int commandParallelism = 10;
+
 	@Option(names = { "-hp", "--http-parallelism" }, paramLabel = "http_parallelism", description = "Number of http handler thread")
 	private int httpParallelism = 5;
 
+	@Option(names = { "-vt", "--virtual-threads" }, description = "Run miner operations and http handlers on virtual threads (Java 21 or later)")
+	private boolean virtualThreads = false;
+
 	@Option(names = { "-ll", "--log-level" }, paramLabel = "log_level", description = "Log level (SEVERE, WARNING, INFO, FINE, FINER, FINEST)")
 	private String logLevel = "INFO";
 
@@ -184,6 +211,18 @@ public class Start implements Callable<Void>
 				return null;
 			}
 
+			if (this.statJitter < 0 || this.statJitter > 1)
+			{
+				log.severe("statistics-jitter must be between 0 and 1");
+				return null;
+			}
+
+			if (this.statBackoff < 1)
+			{
+				log.severe("statistics-backoff must be greater than 0");
+				return null;
+			}
+
 			if (this.statParallelism <= 0)
 			{
 				log.severe("statistics-parallelism must be greater than 0");
@@ -196,9 +235,45 @@ public class Start implements Callable<Void>
 				return null;
 			}
 
-			if (this.watchDogParallelism <= 0)
+			if (this.observationFreshness != null && this.observationFreshness < 0)
 			{
-				log.severe("watchdog-parallelism must be greater than 0");
+				log.severe("observation-freshness cannot be negative");
+				return null;
+			}
+
+			if (this.observationFreshness != null && this.observationFreshness > this.watchDogHeartbeat)
+			{
+				log.severe("observation-freshness cannot exceed watchdog-heartbeat");
+				return null;
+			}
+
+			if (this.hostConcurrency <= 0)
+			{
+				log.severe("host-concurrency must be greater than 0");
+				return null;
+			}
+
+			if (this.hostRate <= 0)
+			{
+				log.severe("host-rate must be greater than 0");
+				return null;
+			}
+
+			if (this.restartBudget <= 0)
+			{
+				log.severe("restart-budget must be greater than 0");
+				return null;
+			}
+
+			if (this.restartWindow <= 0)
+			{
+				log.severe("restart-window must be greater than 0");
+				return null;
+			}
+
+			if (this.historySize <= 0)
+			{
+				log.severe("history-size must be greater than 0");
 				return null;
 			}
 
@@ -208,6 +283,12 @@ public class Start implements Callable<Void>
 				return null;
 			}
 
+			if (this.commandParallelism <= 0)
+			{
+				log.severe("command-parallelism must be greater than 0");
+				return null;
+			}
+
 			// http server
 			if (this.httpParallelism <= 0)
 			{
@@ -215,7 +296,19 @@ public class Start implements Callable<Void>
 				return null;
 			}
 
-			final ExecutorService httpPool = Executors.newFixedThreadPool(this.httpParallelism);
+			if (this.virtualThreads)
+			{
+				if (!Threads.isVirtualThreadsSupported())
+				{
+					log.severe("virtual-threads requires Java 21 or later");
+					return null;
+				}
+
+				Threads.setVirtualThreads(true);
+				log.info("Using virtual threads");
+			}
+
+			final ExecutorService httpPool = Threads.newExecutor("HttpHandler", this.httpParallelism);
 			final Path htmlPath = Paths.get(this.htmlDirectory);
 			if (!Files.exists(htmlPath))
 			{
@@ -229,14 +322,18 @@ public class Start implements Callable<Void>
 				return null;
 			}
 
-			final MiningFarm miningFarm = new MiningFarm(miningFarmConfig, Duration.ofSeconds(this.statHeartbeat), this.statParallelism, Duration.ofSeconds(this.watchDogHeartbeat),
-					this.watchDogParallelism, Duration.ofSeconds(this.consensusHeartbeat), clock, LogFactory.getLogger("farm"));
+			// a probe precedes every watchdog check: an older observation is at least one check old
+			final Duration observationFreshness = Duration.ofSeconds(this.observationFreshness == null ? this.watchDogHeartbeat : this.observationFreshness);
+			final MiningFarm miningFarm = new MiningFarm(miningFarmConfig, Duration.ofSeconds(this.statHeartbeat), this.statJitter, this.statBackoff, this.statParallelism, Duration.ofSeconds(this.watchDogHeartbeat),
+					observationFreshness, this.hostConcurrency, this.hostRate,
+					this.restartBudget, Duration.ofSeconds(this.restartWindow), this.historySize,
+					Duration.ofSeconds(this.consensusHeartbeat), clock, LogFactory.getLogger("farm"));
 
 			// start httpd
 			final Host host = new Host(this.hostBind, 8888);
 
 			HttpServer httpServer = new HttpServer(new InetSocketAddress(host.getHostname(), host.getPort()), httpPool);
-			httpServer.addContext("/", new HttpRequestHandler(miningFarm, htmlPath, LogFactory.getLogger("HttpRequestHandler")));
+			httpServer.addContext("/", new HttpRequestHandler(miningFarm, htmlPath, this.commandParallelism, LogFactory.getLogger("HttpRequestHandler")));
 
 			log.info("Starting http server");
 			httpServer.start();
@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (C) 2018 Ortis (cao.ortis.org@gmail.com)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+
+package org.ortis.mochimo.farm_manager.farm;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.ortis.mochimo.farm_manager.farm.miner.Miner;
+import org.ortis.mochimo.farm_manager.farm.miner.MinerStatistics;
+
+/**
+ * Compute the delay before the next statistics update of a {@link Miner} from its last {@link MinerStatistics}:
+ * <ul>
+ * <li>miners without statistics, syncing or whose processes just changed (start, stop, restart) are polled at the fast interval</li>
+ * <li>miners whose hash rate changed significantly or whose height jumped are polled at the base interval</li>
+ * <li>stable miners back off exponentially from the base interval to the slow interval</li>
+ * </ul>
+ * 
+ * @author Ortis <br>
+ *         2018 Sep 24 8:47:06 PM <br>
+ */
+public class AdaptivePollingPolicy
+{
+	private final static double HPS_CHANGE_THRESHOLD = 0.1;
+
+	private final long fast;
+	private final long base;
+	private final long slow;
+
+	private final Map<String, State> states = new ConcurrentHashMap<>();
+
+	private static class State
+	{
+		private long interval;
+		private boolean running;
+		private Boolean solving;
+		private Boolean syncing;
+		private Double hps;
+		private Long height;
+	}
+
+	/**
+	 * 
+	 * @param base:
+	 *            update interval of a miner that just changed
+	 * @param backoff:
+	 *            the fast interval is base / backoff, the slow interval is base * backoff. 1 disables the adaptation
+	 */
+	public AdaptivePollingPolicy(final Duration base, final int backoff)
+	{
+		if (backoff < 1)
+			throw new IllegalArgumentException("Backoff cannot be less than 1");
+
+		this.base = base.toNanos();
+		if (this.base <= 0)
+			throw new IllegalArgumentException("Base interval must be positive");
+
+		this.fast = this.base / backoff;
+		this.slow = this.base * backoff;
+	}
+
+	/**
+	 * 
+	 * @param statistics:
+	 *            last {@link MinerStatistics} of the miner
+	 * @return delay before the next update
+	 */
+	public Duration next(final MinerStatistics statistics)
+	{
+		final State state = this.states.computeIfAbsent(statistics.getMinerId(), id -> new State());
+
+		final Double hps = statistics.hasHps() ? statistics.getHps() : null;
+		final Long height = statistics.hasHeight() ? statistics.getHeight() : null;
+
+		synchronized (state)
+		{
+			if (statistics.isDefault() || Boolean.TRUE.equals(statistics.isSyncing()) || statistics.isRunning() != state.running
+					|| !equals(statistics.isSolving(), state.solving) || !equals(statistics.isSyncing(), state.syncing))
+				state.interval = this.fast;
+			else if (changed(hps, state.hps) || (height != null && state.height != null && (height < state.height || height > state.height + 1)))
+				state.interval = this.base;
+			else
+				state.interval = Math.min(this.slow, Math.max(this.base, state.interval * 2));
+
+			state.running = statistics.isRunning();
+			state.solving = statistics.isSolving();
+			state.syncing = statistics.isSyncing();
+			state.hps = hps;
+			state.height = height;
+
+			return Duration.ofNanos(state.interval);
+		}
+	}
+
+	private static boolean changed(final Double value, final Double previous)
+	{
+		if (value == null || previous == null)
+			return value != previous;
+
+		return Math.abs(value - previous) > HPS_CHANGE_THRESHOLD * Math.max(Math.abs(previous), 1);
+	}
+
+	private static boolean equals(final Boolean a, final Boolean b)
+	{
+		return a == null ? b == null : a.equals(b);
+	}
+
+}
@@ -19,6 +19,7 @@ import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.security.spec.InvalidKeySpecException;
+import java.time.Clock;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -33,10 +34,15 @@ import javax.crypto.NoSuchPaddingException;
 import javax.crypto.SecretKey;
 
 import org.ortis.mochimo.farm_manager.Encryption;
+import org.ortis.mochimo.farm_manager.farm.miner.HostLimiter;
+import org.ortis.mochimo.farm_manager.farm.miner.MinerStatisticsListener;
+import org.ortis.mochimo.farm_manager.farm.miner.RestartBudget;
 import org.ortis.mochimo.farm_manager.farm.miner.Miner;
 import org.ortis.mochimo.farm_manager.farm.miner.MinerConfig;
 import org.ortis.mochimo.farm_manager.farm.miner.SSHConnector;
 import org.ortis.mochimo.farm_manager.farm.miner.SSHMiner;
+import org.ortis.mochimo.farm_manager.farm.miner.SSHMiner.LogMode;
+import org.ortis.mochimo.farm_manager.farm.tasks.TimingWheel;
 import org.ortis.mochimo.farm_manager.log.LogFactory;
 import org.ortis.mochimo.farm_manager.network.consensus.NetworkConsensus;
 import org.ortis.mochimo.farm_manager.network.consensus.NetworkConsensusFactory;
@@ -53,26 +59,47 @@ import com.jcraft.jsch.JSchException;
  */
 public class MiningFarm
 {
+	private final static Duration TIMING_WHEEL_TICK = Duration.ofMillis(100);
+	private final static int TIMING_WHEEL_BITS = 6;
+	private final static int TIMING_WHEEL_LEVELS = 4;
+	private final static Duration FARM_HISTORY_PERIOD = Duration.ofSeconds(10);
+
 	private final Supplier<LocalDateTime> clock;
 	private final Logger log;
 
-	private Thread statisticUpdateSchedulerThread;
-	private Thread watchDogThread;
+	private final TimingWheel timingWheel;
+	private final Thread timingWheelThread;
+	private final StatisticsUpdateScheduler statisticsUpdateScheduler;
 
+	private final HostLimiter.Registry hostLimiters;
+	private final RestartBudget restartBudget;
+	private final MiningFarmSnapshotPublisher snapshotPublisher;
+	private final MiningFarmHistory history;
+	private volatile TimingWheel.Timer farmHistoryTimer;
 	private final List<Miner> miners;
 	private final List<Miner> roMiners;
 
 	private final NetworkConsensus networkConsensus;
 	private Thread networkConsensusUpdateThread;
 
-	public MiningFarm(final MiningFarmConfig config, final Duration statisticsUpdateHeartbeat, final int statisticsParallelism, final Duration watchDogHeartbeat, final int watchDogParallelism,
-			final Duration networkConsensusUpdateHeartbeat, final Supplier<LocalDateTime> clock, final Logger log) throws IOException, NoSuchAlgorithmException, InvalidKeySpecException,
-			InvalidKeyException, InvalidAlgorithmParameterException, NoSuchPaddingException, IllegalBlockSizeException, BadPaddingException, JSchException
+	public MiningFarm(final MiningFarmConfig config, final Duration statisticsUpdateHeartbeat, final double statisticsJitter, final int statisticsBackoff, final int statisticsParallelism,
+			final Duration watchDogHeartbeat, final Duration observationMaxAge, final int hostConcurrency,
+			final double hostRate, final int restartBudget, final Duration restartWindow, final int historySize, final Duration networkConsensusUpdateHeartbeat, final Supplier<LocalDateTime> clock, final Logger log) throws IOException, NoSuchAlgorithmException, InvalidKeySpecException, InvalidKeyException,
+			InvalidAlgorithmParameterException, NoSuchPaddingException, IllegalBlockSizeException, BadPaddingException, JSchException
 	{
 
 		this.clock = clock;
 		this.log = log;
 
+		this.hostLimiters = new HostLimiter.Registry(hostConcurrency, hostRate);
+		this.restartBudget = new RestartBudget(restartBudget, restartWindow);
+		this.history = new MiningFarmHistory(historySize, Clock.systemUTC());
+		this.snapshotPublisher = new MiningFarmSnapshotPublisher();
+		final MinerStatisticsListener statisticsListener = (previous, current) ->
+		{
+			this.snapshotPublisher.onStatistics(previous, current);
+			this.history.onStatistics(previous, current);
+		};
 		this.miners = new ArrayList<>();
 		this.roMiners = Collections.unmodifiableList(this.miners);
 
@@ -102,21 +129,26 @@ public class MiningFarm
 
 			final String password = parseField(id, minerConfig, "password", key);
 			final String privateKey = parseField(id, minerConfig, "privateKeyPath", key);
+			final String privateKeyPassphrase = parseField(id, minerConfig, "privateKeyPassphrase", key);
 
 			final String startCommand = parseField(id, minerConfig, "startCommand", key);
 			final String stopCommand = parseField(id, minerConfig, "stopCommand", key);
 			final String logCommand = parseField(id, minerConfig, "logCommand", key);
+			final LogMode logMode = LogMode.parse(parseField(id, minerConfig, "logMode", key));
+			final String logFile = parseField(id, minerConfig, "logFile", key);
 			final List<String> policies = parseArrayField(id, minerConfig, "policy", key);
 
-			final SSHConnector connector = new SSHConnector(id, host.getHostname(), host.getPort(), user, password, privateKey, LogFactory.getLogger(id + "-SSHConnector"));
-			final SSHMiner miner = new SSHMiner(id, startCommand, stopCommand, logCommand, policies, connector, this.clock, LogFactory.getLogger(id + "-Miner"));
+			final SSHConnector connector = new SSHConnector(id, host.getHostname(), host.getPort(), user, password, privateKey, privateKeyPassphrase,
+					this.hostLimiters.get(host.getHostname()), LogFactory.getLogger(id + "-SSHConnector"));
+			final SSHMiner miner = new SSHMiner(id, startCommand, stopCommand, logCommand, logMode, logFile, policies, observationMaxAge, this.restartBudget, connector, statisticsListener,
+					this.clock, LogFactory.getLogger(id + "-Miner"));
 			this.miners.add(miner);
 		}
 
-		// set watchdog
-		final WatchDog watchDog = new WatchDog(this, watchDogHeartbeat, watchDogParallelism, this.log);
-		this.watchDogThread = new Thread(watchDog);
-		this.watchDogThread.setName("WatchDog");
+		// timers of the miner probes
+		this.timingWheel = new TimingWheel(TIMING_WHEEL_TICK, TIMING_WHEEL_BITS, TIMING_WHEEL_LEVELS, LogFactory.getLogger("TimingWheel"));
+		this.timingWheelThread = new Thread(this.timingWheel);
+		this.timingWheelThread.setName("TimingWheel");
 
 		// set consensus
 		if (config.getNetworkConsensuses().isEmpty())
@@ -132,9 +164,9 @@ public class MiningFarm
 		this.networkConsensusUpdateThread = new Thread(new NetworkConsensusUpdater(this.networkConsensus, networkConsensusUpdateHeartbeat, log));
 		this.networkConsensusUpdateThread.setName("NetworkConsensusUpdater");
 
-		this.statisticUpdateSchedulerThread = new Thread(
-				new StatisticsUpdateScheduler(this, Duration.ofMillis(Math.max(1000, statisticsUpdateHeartbeat.toMillis() / 10)), statisticsUpdateHeartbeat, statisticsParallelism, this.clock, log));
-		this.statisticUpdateSchedulerThread.setName("StatisticsUpdateScheduler");
+		// the policies are checked by the statistics updates, right after the probe
+		this.statisticsUpdateScheduler = new StatisticsUpdateScheduler(this, this.timingWheel, statisticsUpdateHeartbeat, statisticsJitter, statisticsBackoff,
+				watchDogHeartbeat, statisticsParallelism, LogFactory.getLogger("StatisticsUpdateScheduler"));
 
 	}
 
@@ -189,23 +221,71 @@ public class MiningFarm
 
 	public MiningFarmStatistics statistics()
 	{
-		return new MiningFarmStatistics(this);
+		return statistics(true);
+	}
+
+	/**
+	 * 
+	 * @param includeMiners:
+	 *            false to skip the statistics of each miner
+	 * @return statistics of the farm
+	 */
+	public MiningFarmStatistics statistics(final boolean includeMiners)
+	{
+		return new MiningFarmStatistics(this, includeMiners);
+	}
+
+	/**
+	 * 
+	 * @return latest consistent view of the statistics of the miners. Does not lock the miners
+	 */
+	public MiningFarmSnapshot getSnapshot()
+	{
+		return this.snapshotPublisher.getSnapshot();
+	}
+
+	/**
+	 * 
+	 * @return recent statistics of each miner
+	 */
+	public MiningFarmHistory getHistory()
+	{
+		return this.history;
 	}
 
 	public void start()
 	{
+		for (final Miner miner : this.miners)
+			miner.open();
+
 		this.log.info("Starting statistics updater");
-		this.statisticUpdateSchedulerThread.start();
-		this.watchDogThread.start();
+		this.statisticsUpdateScheduler.start();
+		this.farmHistoryTimer = this.timingWheel.schedule(FARM_HISTORY_PERIOD, this::recordFarmHistory);
+		this.timingWheelThread.start();
 		this.networkConsensusUpdateThread.start();
 	}
 
 	public void stop()
 	{
 		this.log.info("Stopping statistics updater");
-		this.statisticUpdateSchedulerThread.interrupt();
-		this.watchDogThread.interrupt();
+		this.timingWheelThread.interrupt();
+		final TimingWheel.Timer farmHistoryTimer = this.farmHistoryTimer;
+		if (farmHistoryTimer != null)
+			farmHistoryTimer.cancel();
+		this.statisticsUpdateScheduler.stop();
 		this.networkConsensusUpdateThread.interrupt();
+
+		for (final Miner miner : this.miners)
+			miner.close();
+	}
+
+	/**
+	 * Sample the farm totals on a fixed period, so that the farm rollups are not weighted by the number of statistics updates
+	 */
+	private void recordFarmHistory()
+	{
+		this.history.recordFarm(getSnapshot());
+		this.farmHistoryTimer = this.timingWheel.schedule(FARM_HISTORY_PERIOD, this::recordFarmHistory);
 	}
 
 	public Miner getMiner(final String id)
@@ -223,6 +303,29 @@ public class MiningFarm
 		return this.roMiners;
 	}
 
+	/**
+	 * 
+	 * @return the SSH command limiters by hostname
+	 */
+	public HostLimiter.Registry getHostLimiters()
+	{
+		return this.hostLimiters;
+	}
+
+	/**
+	 * 
+	 * @return the farm wide budget of policy restarts
+	 */
+	public RestartBudget getRestartBudget()
+	{
+		return this.restartBudget;
+	}
+
+	public StatisticsUpdateScheduler getStatisticsUpdateScheduler()
+	{
+		return this.statisticsUpdateScheduler;
+	}
+
 	public NetworkConsensus getNetworkConsensus()
 	{
 		return this.networkConsensus;
@@ -0,0 +1,181 @@
+/*******************************************************************************
+ * Copyright (C) 2018 Ortis (cao.ortis.org@gmail.com)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+package org.ortis.mochimo.farm_manager.farm;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.ortis.mochimo.farm_manager.farm.miner.MinerHistory;
+import org.ortis.mochimo.farm_manager.farm.miner.MinerHistory.Samples;
+import org.ortis.mochimo.farm_manager.farm.miner.MinerStatistics;
+import org.ortis.mochimo.farm_manager.farm.miner.MinerStatisticsListener;
+import org.ortis.mochimo.farm_manager.farm.miner.RollupSeries;
+import org.ortis.mochimo.farm_manager.farm.miner.RollupSeries.Buckets;
+import org.ortis.mochimo.farm_manager.farm.miner.Rollups;
+import org.ortis.mochimo.farm_manager.farm.miner.Rollups.Tier;
+
+/**
+ * Record the {@link MinerStatistics} of each miner of the farm in its {@link MinerHistory} (raw samples). The hash rate of each miner and of the farm is
+ * also aggregated in {@link Rollups}
+ * 
+ * @author Ortis <br>
+ *         2018 Oct 01 9:48:03 PM <br>
+ */
+public class MiningFarmHistory implements MinerStatisticsListener
+{
+	private final int capacity;
+	private final Clock clock;
+	private final Map<String, MinerHistory> histories = new ConcurrentHashMap<>();
+	private final List<Tier> tiers;
+	private final Map<String, Rollups> rollups = new ConcurrentHashMap<>();
+	private final Rollups noRollups;
+	private final Rollups farmRollups;
+
+	/**
+	 * 
+	 * @param capacity:
+	 *            maximum number of samples per miner
+	 * @param clock:
+	 *            time source of the samples
+	 */
+	public MiningFarmHistory(final int capacity, final Clock clock)
+	{
+		this(capacity, Rollups.DEFAULT_TIERS, clock);
+	}
+
+	/**
+	 * 
+	 * @param capacity:
+	 *            maximum number of samples per miner
+	 * @param tiers:
+	 *            rollup tiers, from the finest to the coarsest
+	 * @param clock:
+	 *            time source of the samples
+	 */
+	public MiningFarmHistory(final int capacity, final List<Tier> tiers, final Clock clock)
+	{
+		if (capacity < 1)
+			throw new IllegalArgumentException("Capacity cannot be less than 1");
+		this.capacity = capacity;
+		this.tiers = tiers;
+		this.noRollups = new Rollups(tiers);// never recorded: queried for the miners without hash rate
+		this.farmRollups = new Rollups(tiers);
+		this.clock = clock;
+	}
+
+	@Override
+	public void onStatistics(final MinerStatistics previous, final MinerStatistics current)
+	{
+		if (current.isDefault())
+			return;
+
+		// samples are stamped by the clock of the history: the local time of the statistics goes back when the clock falls back (DST). An update from the log
+		// stream keeps the time of its probe and the stamp of its sample
+		final MinerHistory history = this.histories.computeIfAbsent(current.getMinerId(), id -> new MinerHistory(this.capacity));
+		final long newest = history.getNewestTime();
+		final boolean sameProbe = newest != Long.MIN_VALUE && previous != null && !previous.isDefault() && previous.getTime().equals(current.getTime());
+		final long time = sameProbe ? newest : this.clock.millis();
+		history.record(time, current);
+
+		// the log stream updates the statistics of a probe several times: the rollups weight each probe once
+		if (current.hasHps() && !sameProbe)
+			this.rollups.computeIfAbsent(current.getMinerId(), id -> new Rollups(this.tiers)).record(time, (float) current.getHps());
+	}
+
+	/**
+	 * Record the hash rate of the farm. Must be called on a fixed period: each call weights the same in the rollups
+	 * 
+	 * @param snapshot:
+	 *            latest snapshot of the farm
+	 */
+	public void recordFarm(final MiningFarmSnapshot snapshot)
+	{
+		this.farmRollups.record(this.clock.millis(), (float) snapshot.getTotals().getHPS());
+	}
+
+	/**
+	 * 
+	 * @param minerId
+	 * @return history of the miner, null if nothing was recorded yet
+	 */
+	public MinerHistory get(final String minerId)
+	{
+		return this.histories.get(minerId);
+	}
+
+	/**
+	 * 
+	 * @param minerId
+	 * @param from:
+	 *            inclusive, milli seconds since epoch
+	 * @param to:
+	 *            inclusive, milli seconds since epoch
+	 * @return samples of the miner recorded between from and to
+	 */
+	public Samples query(final String minerId, final long from, final long to)
+	{
+		final MinerHistory history = this.histories.get(minerId);
+		return history == null ? Samples.EMPTY : history.query(from, to);
+	}
+
+	/**
+	 * 
+	 * @param minerId
+	 * @param from:
+	 *            inclusive, milli seconds since epoch
+	 * @param to:
+	 *            inclusive, milli seconds since epoch
+	 * @param resolution:
+	 *            requested resolution in milli seconds
+	 * @return hash rate buckets of the coarsest tier that meets the resolution and retains from (see {@link Rollups#select(long, long, long)}), null if the raw
+	 *         samples are finer than every tier
+	 */
+	public Buckets queryRollup(final String minerId, final long from, final long to, final long resolution)
+	{
+		final RollupSeries series = this.rollups.getOrDefault(minerId, this.noRollups).select(resolution, from, this.clock.millis());
+		return series == null ? null : series.query(from, to);
+	}
+
+	/**
+	 * 
+	 * @param from:
+	 *            inclusive, milli seconds since epoch
+	 * @param to:
+	 *            inclusive, milli seconds since epoch
+	 * @param resolution:
+	 *            requested resolution in milli seconds
+	 * @return hash rate buckets of the farm, from the coarsest tier that meets the resolution and retains from, or the finest tier that retains from
+	 */
+	public Buckets queryFarmRollup(final long from, final long to, final long resolution)
+	{
+		final RollupSeries series = this.farmRollups.select(Math.max(resolution, this.farmRollups.getFinest().getWidth()), from, this.clock.millis());
+		return series.query(from, to);
+	}
+
+	/**
+	 * 
+	 * @return current time of the clock of the history, in milli seconds since epoch
+	 */
+	public long currentTimeMillis()
+	{
+		return this.clock.millis();
+	}
+
+	public int getCapacity()
+	{
+		return capacity;
+	}
+}
@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (C) 2018 Ortis (cao.ortis.org@gmail.com)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+package org.ortis.mochimo.farm_manager.farm;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Map;
+
+import org.ortis.mochimo.farm_manager.farm.miner.MinerStatistics;
+
+/**
+ * Immutable view of the {@link MinerStatistics} of every miner of the farm, with the farm totals. The version is incremented each time the statistics of
+ * a miner are replaced: two snapshots with the same version are equal
+ * 
+ * @author Ortis <br>
+ *         2018 Sep 30 2:47:13 PM <br>
+ */
+public class MiningFarmSnapshot
+{
+	private final long version;
+	private final Map<String, Integer> indexes;
+	private final MinerStatistics [] statistics;
+	private final MiningFarmTotals totals;
+	private final List<MinerStatistics> miners;
+
+	/**
+	 * 
+	 * @param version
+	 * @param indexes:
+	 *            index of each miner in statistics. Not copied: must not be modified afterwards
+	 * @param statistics:
+	 *            not copied: must not be modified afterwards
+	 * @param totals
+	 */
+	MiningFarmSnapshot(final long version, final Map<String, Integer> indexes, final MinerStatistics [] statistics, final MiningFarmTotals totals)
+	{
+		this.version = version;
+		this.indexes = indexes;
+		this.statistics = statistics;
+		this.totals = totals;
+		this.miners = new AbstractList<MinerStatistics>()
+		{
+			@Override
+			public MinerStatistics get(final int index)
+			{
+				return MiningFarmSnapshot.this.statistics[index];
+			}
+
+			@Override
+			public int size()
+			{
+				return MiningFarmSnapshot.this.statistics.length;
+			}
+		};
+	}
+
+	public long getVersion()
+	{
+		return version;
+	}
+
+	/**
+	 * 
+	 * @return statistics of every miner, in the order of the farm. Read only
+	 */
+	public List<MinerStatistics> getMiners()
+	{
+		return this.miners;
+	}
+
+	/**
+	 * 
+	 * @param minerId
+	 * @return statistics of the miner, null if the miner is unknown
+	 */
+	public MinerStatistics getStatistics(final String minerId)
+	{
+		final Integer index = this.indexes.get(minerId);
+		return index == null ? null : this.statistics[index];
+	}
+
+	public MiningFarmTotals getTotals()
+	{
+		return totals;
+	}
+
+	Map<String, Integer> getIndexes()
+	{
+		return indexes;
+	}
+
+	MinerStatistics [] getStatisticsArray()
+	{
+		return statistics;
+	}
+}
@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (C) 2018 Ortis (cao.ortis.org@gmail.com)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+package org.ortis.mochimo.farm_manager.farm;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.ortis.mochimo.farm_manager.farm.miner.MinerStatistics;
+import org.ortis.mochimo.farm_manager.farm.miner.MinerStatisticsListener;
+
+/**
+ * Publish a new {@link MiningFarmSnapshot} each time the statistics of a miner are replaced. Snapshots are copy on write and published through a single
+ * volatile reference: readers get a consistent view of the farm without locking the miners
+ * 
+ * @author Ortis <br>
+ *         2018 Sep 30 3:05:42 PM <br>
+ */
+public class MiningFarmSnapshotPublisher implements MinerStatisticsListener
+{
+	private final Object lock = new Object();
+	private volatile MiningFarmSnapshot snapshot = new MiningFarmSnapshot(0, Collections.emptyMap(), new MinerStatistics[0], MiningFarmTotals.ZERO);
+
+	@Override
+	public void onStatistics(final MinerStatistics previous, final MinerStatistics current)
+	{
+		synchronized (this.lock)
+		{
+			final MiningFarmSnapshot snapshot = this.snapshot;
+
+			Map<String, Integer> indexes = snapshot.getIndexes();
+			final MinerStatistics [] statistics;
+			Integer index = indexes.get(current.getMinerId());
+			// the totals are updated from the entry of the snapshot: the previous statistics seen by the miner may already be stale here
+			final MinerStatistics replaced = index == null ? null : snapshot.getStatisticsArray()[index];
+			if (index == null)
+			{// new miner: appended in the order of publication
+				index = indexes.size();
+				final Map<String, Integer> copy = new HashMap<>(indexes);
+				copy.put(current.getMinerId(), index);
+				indexes = Collections.unmodifiableMap(copy);
+				statistics = Arrays.copyOf(snapshot.getStatisticsArray(), index + 1);
+			} else
+				statistics = snapshot.getStatisticsArray().clone();
+
+			statistics[index] = current;
+			this.snapshot = new MiningFarmSnapshot(snapshot.getVersion() + 1, indexes, statistics, snapshot.getTotals().replace(replaced, current));
+		}
+	}
+
+	/**
+	 * 
+	 * @return latest snapshot of the farm
+	 */
+	public MiningFarmSnapshot getSnapshot()
+	{
+		return this.snapshot;
+	}
+}
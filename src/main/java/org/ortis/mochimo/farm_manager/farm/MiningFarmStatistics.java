@@ -14,18 +14,17 @@
 
 package org.ortis.mochimo.farm_manager.farm;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
 
-import org.ortis.mochimo.farm_manager.farm.miner.Miner;
 import org.ortis.mochimo.farm_manager.farm.miner.MinerStatistics;
 import org.ortis.mochimo.farm_manager.network.MochimoNetwork;
 
 public class MiningFarmStatistics
 {
 	private final Double totalHPS;
-	private final Integer totalSolved;
+	private final Long totalSolved;
 	private final Integer solvingMiners;
 	private final Integer runningMiners;
 
@@ -36,55 +35,31 @@ public class MiningFarmStatistics
 	private final Long estimatedTimeToReward;
 	private final String humanEstimatedTimeToReward;
 
+	private final long version;
 	private final List<MinerStatistics> miners;
 
 	public MiningFarmStatistics(final MiningFarm farm)
 	{
-		this.miners = new ArrayList<>();
-
-		double totalHPS = 0;
-		int totalSolved = 0;
-		int solving = 0;
-		int running = 0;
-
-		for (final Miner miner : farm.getMiners())
-		{
-			final MinerStatistics stat = miner.getStatistics();
-
-			this.miners.add(stat);
-
-			if (stat.isDefault())
-				continue;// dont aggregate if default statistics
-
-			if (stat.isRunning())
-				running++;
-
-			for (final Map.Entry<String, String> entry : stat.getStatistics().entrySet())
-			{
-				if (stat.isSolving() && entry.getKey().contains("aiku/second"))
-					totalHPS += Double.parseDouble(entry.getValue());
-				else if (entry.getKey().contains("olved"))
-					totalSolved += Integer.parseInt(entry.getValue());
-
-			}
-
-			if (stat.isSolving() != null && stat.isSolving())
-				solving++;
-		}
-
-		if (this.miners.isEmpty())
-		{
-			this.totalHPS = 0d;
-			this.totalSolved = 0;
-			this.solvingMiners = 0;
-			this.runningMiners = 0;
-		} else
-		{
-			this.totalHPS = totalHPS;
-			this.totalSolved = totalSolved;
-			this.solvingMiners = solving;
-			this.runningMiners = running;
-		}
+		this(farm, true);
+	}
+
+	/**
+	 * 
+	 * @param farm
+	 * @param includeMiners:
+	 *            false to skip the statistics of each miner
+	 */
+	public MiningFarmStatistics(final MiningFarm farm, final boolean includeMiners)
+	{
+		final MiningFarmSnapshot snapshot = farm.getSnapshot();
+		this.version = snapshot.getVersion();
+		this.miners = includeMiners ? snapshot.getMiners() : Collections.emptyList();
+
+		final MiningFarmTotals totals = snapshot.getTotals();
+		this.totalHPS = totals.getHPS();
+		this.totalSolved = totals.getSolved();
+		this.solvingMiners = totals.getSolvingMiners();
+		this.runningMiners = totals.getRunningMiners();
 
 		this.networkHeightConsensus = farm.getNetworkConsensus().getHeight();
 		this.networkDifficultyConsensus = farm.getNetworkConsensus().getDifficulty();
@@ -106,7 +81,7 @@ public class MiningFarmStatistics
 		return solvingMiners;
 	}
 
-	public Integer getTotalSolved()
+	public Long getTotalSolved()
 	{
 		return totalSolved;
 	}
@@ -116,6 +91,25 @@ public class MiningFarmStatistics
 		return miners;
 	}
 
+	/**
+	 * 
+	 * @return version of the {@link MiningFarmSnapshot} of the statistics
+	 */
+	public long getVersion()
+	{
+		return version;
+	}
+
+	/**
+	 * 
+	 * @return HTTP entity tag: changes when the miners statistics or the network consensus change
+	 */
+	public String getEntityTag()
+	{
+		final int hash = Objects.hash(this.networkHeightConsensus, this.networkDifficultyConsensus, this.miners.isEmpty());
+		return "\"" + this.version + "-" + Integer.toHexString(hash) + "\"";
+	}
+
 	public Long getEstimatedTimeToReward()
 	{
 		return estimatedTimeToReward;
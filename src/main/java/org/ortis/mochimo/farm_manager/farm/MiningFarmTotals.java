@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (C) 2018 Ortis (cao.ortis.org@gmail.com)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+package org.ortis.mochimo.farm_manager.farm;
+
+import org.ortis.mochimo.farm_manager.farm.miner.MinerStatistics;
+
+/**
+ * Immutable farm totals: hash rate, solved blocks, solving and running miners. Updated incrementally by replacing the statistics of one miner at a time
+ * <p>
+ * The hash rate is summed in milli haiku per second so that additions and removals cancel out exactly
+ * 
+ * @author Ortis <br>
+ *         2018 Sep 29 4:20:37 PM <br>
+ */
+public class MiningFarmTotals
+{
+	public final static MiningFarmTotals ZERO = new MiningFarmTotals(0, 0, 0, 0);
+
+	private final long milliHPS;
+	private final long solved;
+	private final int solvingMiners;
+	private final int runningMiners;
+
+	private MiningFarmTotals(final long milliHPS, final long solved, final int solvingMiners, final int runningMiners)
+	{
+		this.milliHPS = milliHPS;
+		this.solved = solved;
+		this.solvingMiners = solvingMiners;
+		this.runningMiners = runningMiners;
+	}
+
+	/**
+	 * Remove the contribution of the previous statistics of a miner and add the contribution of the new ones
+	 * 
+	 * @param previous:
+	 *            replaced statistics, null if none
+	 * @param current
+	 * @return updated totals
+	 */
+	public MiningFarmTotals replace(final MinerStatistics previous, final MinerStatistics current)
+	{
+		return new MiningFarmTotals(this.milliHPS - milliHPS(previous) + milliHPS(current), this.solved - solved(previous) + solved(current),
+				this.solvingMiners - solving(previous) + solving(current), this.runningMiners - running(previous) + running(current));
+	}
+
+	/**
+	 * 
+	 * @return hash rate of the solving miners
+	 */
+	public double getHPS()
+	{
+		return this.milliHPS / 1000d;
+	}
+
+	public long getSolved()
+	{
+		return solved;
+	}
+
+	public int getSolvingMiners()
+	{
+		return solvingMiners;
+	}
+
+	public int getRunningMiners()
+	{
+		return runningMiners;
+	}
+
+	// contributions of a miner. Default statistics are not aggregated
+
+	private static long milliHPS(final MinerStatistics statistics)
+	{
+		if (statistics == null || statistics.isDefault() || !Boolean.TRUE.equals(statistics.isSolving()) || !statistics.hasHps())
+			return 0;
+
+		return Math.round(statistics.getHps() * 1000);
+	}
+
+	private static long solved(final MinerStatistics statistics)
+	{
+		return statistics == null || statistics.isDefault() || !statistics.hasSolved() ? 0 : statistics.getSolved();
+	}
+
+	private static int solving(final MinerStatistics statistics)
+	{
+		return statistics == null || statistics.isDefault() || !Boolean.TRUE.equals(statistics.isSolving()) ? 0 : 1;
+	}
+
+	private static int running(final MinerStatistics statistics)
+	{
+		return statistics == null || statistics.isDefault() || !statistics.isRunning() ? 0 : 1;
+	}
+}
@@ -15,130 +15,94 @@
 package org.ortis.mochimo.farm_manager.farm;
 
 import java.time.Duration;
-import java.time.LocalDateTime;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.function.Supplier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 import org.ortis.mochimo.farm_manager.farm.miner.Miner;
 import org.ortis.mochimo.farm_manager.farm.miner.MinerStatistics;
+import org.ortis.mochimo.farm_manager.farm.tasks.MinerTask;
+import org.ortis.mochimo.farm_manager.farm.tasks.MinerTaskScheduler;
 import org.ortis.mochimo.farm_manager.farm.tasks.StatisticsUpdateTask;
-import org.ortis.mochimo.farm_manager.farm.tasks.TaskBoard;
-import org.ortis.mochimo.farm_manager.farm.tasks.TaskWorker;
-import org.ortis.mochimo.farm_manager.utils.Utils;
+import org.ortis.mochimo.farm_manager.farm.tasks.TimingWheel;
 
 /**
- * Schedule update of {@link MinerStatistics}
+ * Schedule the probe of each miner: update of its {@link MinerStatistics}, followed every watchdog heartbeat by the check of its policies on the same observation.
+ * Statistics and policies share the same timer, task and worker: a miner is never probed twice for the same check
  * 
  * @author Ortis <br>
  *         2018 Jul 02 12:49:10 AM <br>
  */
-public class StatisticsUpdateScheduler implements Runnable
+public class StatisticsUpdateScheduler extends MinerTaskScheduler
 {
-
 	private final MiningFarm farm;
-	private final Duration checkHeartbeat;
-	private final Duration updateHeartbeat;
-	private final Supplier<LocalDateTime> clock;
-	private Logger log;
-
-	private final TaskBoard taskBoard;
-	private final ExecutorService pool;
+	private final AdaptivePollingPolicy pollingPolicy;
+	private final long watchDogHeartbeat;
+	private final long watchDogTolerance;
+	private final Map<String, Long> policyChecks = new ConcurrentHashMap<>();
 
 	/**
 	 * 
 	 * @param farm:
 	 *            {@link MiningFarm} to monitor
-	 * @param checkHeartbeat:
-	 *            minimum time between checks
+	 * @param timingWheel:
+	 *            {@link TimingWheel} firing the updates
 	 * @param updateHeartbeat:
-	 *            minimum time between {@link MinerStatistics} update
-	 * @param queue:
-	 *            pending update queue
+	 *            time between {@link MinerStatistics} update of a miner
+	 * @param jitter:
+	 *            random spread of the due times, as a fraction of the update heartbeat (between 0 and 1)
+	 * @param backoff:
+	 *            adaptive polling factor: stable miners are updated up to backoff times less often, changing miners up to backoff times more often. 1 disables the
+	 *            adaptation
+	 * @param watchDogHeartbeat:
+	 *            time between policy checks of a miner. The update interval never exceeds it
+	 * @param parallelism:
+	 *            number of update threads
 	 * @param log
 	 */
-	public StatisticsUpdateScheduler(final MiningFarm farm, final Duration checkHeartbeat, final Duration updateHeartbeat, final int parallelism, final Supplier<LocalDateTime> clock, final Logger log)
+	public StatisticsUpdateScheduler(final MiningFarm farm, final TimingWheel timingWheel, final Duration updateHeartbeat, final double jitter, final int backoff,
+			final Duration watchDogHeartbeat, final int parallelism, final Logger log)
 	{
+		super(farm.getMiners(), timingWheel, updateHeartbeat, jitter, parallelism, log);
 		this.farm = farm;
-		this.checkHeartbeat = checkHeartbeat;
-		if (this.checkHeartbeat.isNegative() || this.checkHeartbeat.isZero())
-			throw new IllegalArgumentException("Check heartbeat duration must be positive");
-
-		this.updateHeartbeat = updateHeartbeat;
-		if (this.updateHeartbeat.isNegative() || this.updateHeartbeat.isZero())
-			throw new IllegalArgumentException("Update heartbeat duration must be positive");
-
-		this.clock = clock;
-		this.log = log;
-
-		if (parallelism < 1)
-			throw new IllegalArgumentException("Parallelism cannot be less than 1");
-
-		this.taskBoard = new TaskBoard(Duration.ofMillis(1000), log);
-		this.pool = Executors.newFixedThreadPool(parallelism);
-		for (int i = 0; i < parallelism; i++)
-		{
-			final TaskWorker su = new TaskWorker(this.taskBoard, log);
-			this.pool.submit(su);
-		}
+		this.pollingPolicy = new AdaptivePollingPolicy(updateHeartbeat, backoff);
 
+		if (watchDogHeartbeat.isNegative() || watchDogHeartbeat.isZero())
+			throw new IllegalArgumentException("Watchdog heartbeat duration must be positive");
+		this.watchDogHeartbeat = watchDogHeartbeat.toNanos();
+		// the jitter may fire the timer of a policy check up to half its window early
+		this.watchDogTolerance = (long) (jitter * this.watchDogHeartbeat / 2);
 	}
 
 	@Override
-	public void run()
+	protected long getInterval(final Miner miner)
 	{
-		this.log.info("Started");
-		try
-		{
-			while (!Thread.interrupted())
-			{
-
-				final long start = System.currentTimeMillis();
-				for (final Miner miner : farm.getMiners())
-				{
-
-					if (this.taskBoard.contains(miner))
-					{
-						this.log.finest("Statistics update task of miner " + miner + " is already pending. Skipping");
-						continue;
-					}
-
-					final boolean def = miner.getStatistics().isDefault();
-					final Duration elpased = Duration.between(miner.getStatistics().getTime(), this.clock.get());
-					if (def || elpased.compareTo(this.updateHeartbeat) > 0)
-					{
-
-						this.log.fine("Requesting update for miner " + miner);
-						this.taskBoard.add(new StatisticsUpdateTask(miner));
-					}
+		final long interval = this.pollingPolicy.next(miner.getStatistics()).toNanos();
+		final Long policyCheck = this.policyChecks.get(miner.getId());
+		if (policyCheck == null)
+			return interval;
 
-				}
-
-				this.log.fine("Pending statistics update -> " + this.taskBoard.pendingSize());
-
-				final long elapsed = System.currentTimeMillis() - start;
-
-				final long sleep = this.checkHeartbeat.toMillis() - elapsed;
-				if (sleep <= 0)
-					this.log.warning("Update took longer than " + this.checkHeartbeat);
-				else
-					Thread.sleep(sleep);
+		// a stable miner is still probed right before each policy check
+		return Math.max(0, Math.min(interval, policyCheck + this.watchDogHeartbeat - System.nanoTime()));
+	}
 
-			}
+	@Override
+	protected void onUnreachable(final Miner miner)
+	{
+		// the policies of the miner are no longer checked: its deferred restart would hold a restart of the budget until it expires
+		this.farm.getRestartBudget().cancel(miner.getId());
+	}
 
-		} catch (final InterruptedException e)
-		{
-			Thread.currentThread().interrupt();
+	@Override
+	protected MinerTask newTask(final Miner miner)
+	{
+		final long now = System.nanoTime();
+		final Long policyCheck = this.policyChecks.get(miner.getId());
+		final boolean checkPolicies = policyCheck == null || now - policyCheck >= this.watchDogHeartbeat - this.watchDogTolerance;
+		if (checkPolicies)
+			this.policyChecks.put(miner.getId(), now);
 
-		} catch (final Exception e)
-		{
-			this.log.severe(Utils.formatException(e));
-		} finally
-		{
-			this.pool.shutdownNow();
-			this.log.info("Stopped");
-		}
+		return new StatisticsUpdateTask(miner, checkPolicies, this.farm.getNetworkConsensus());
 	}
 
 }
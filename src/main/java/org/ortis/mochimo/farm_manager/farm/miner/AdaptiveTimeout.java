@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright (C) 2018 Ortis (cao.ortis.org@gmail.com)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+
+package org.ortis.mochimo.farm_manager.farm.miner;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Timeout adapted from the observed round trip times: a percentile of the last samples multiplied by a safety factor, bounded by a minimum and a maximum.
+ * 
+ * @author Ortis <br>
+ *         2018 Sep 17 9:20:45 PM <br>
+ */
+public class AdaptiveTimeout
+{
+	private final static int MIN_SAMPLES = 5;
+
+	private final long [] samples;
+	private int count = 0;
+	private int index = 0;
+
+	private final double percentile;
+	private final double factor;
+	private final long min;
+	private final long max;
+
+	/**
+	 * 
+	 * @param capacity:
+	 *            number of samples kept
+	 * @param percentile:
+	 *            percentile of the samples, between 0 and 1
+	 * @param factor:
+	 *            safety factor applied to the percentile
+	 * @param min:
+	 *            minimum timeout
+	 * @param max:
+	 *            maximum timeout. Used until enough samples are recorded
+	 */
+	public AdaptiveTimeout(final int capacity, final double percentile, final double factor, final Duration min, final Duration max)
+	{
+		if (capacity < MIN_SAMPLES)
+			throw new IllegalArgumentException("Capacity cannot be less than " + MIN_SAMPLES);
+
+		this.samples = new long[capacity];
+		this.percentile = percentile;
+		this.factor = factor;
+		this.min = min.toMillis();
+		this.max = max.toMillis();
+	}
+
+	/**
+	 * Record a successful round trip time
+	 * 
+	 * @param millis
+	 */
+	public synchronized void record(final long millis)
+	{
+		this.samples[this.index] = millis;
+		this.index = (this.index + 1) % this.samples.length;
+		if (this.count < this.samples.length)
+			this.count++;
+	}
+
+	/**
+	 * Record a timeout: widen the timeout so that a slower host does not keep failing
+	 */
+	public synchronized void recordTimeout()
+	{
+		record(Math.min(this.max, get() * 2));
+	}
+
+	/**
+	 * 
+	 * @return the timeout in milli seconds
+	 */
+	public synchronized int get()
+	{
+		if (this.count < MIN_SAMPLES)
+			return (int) this.max;
+
+		final long [] sorted = Arrays.copyOf(this.samples, this.count);
+		Arrays.sort(sorted);
+		final long value = sorted[Math.min(this.count - 1, (int) Math.ceil(this.percentile * this.count) - 1)];
+
+		return (int) Math.max(this.min, Math.min(this.max, (long) (value * this.factor)));
+	}
+}
@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Copyright (C) 2018 Ortis (cao.ortis.org@gmail.com)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+
+package org.ortis.mochimo.farm_manager.farm.miner;
+
+import java.time.Duration;
+
+/**
+ * Circuit breaker of a host. After consecutive connection failures, the breaker opens and requests are rejected without contacting the host. Once the open
+ * duration has elapsed, a single trial request is allowed (half-open): success closes the breaker, failure opens it again with an exponentially longer duration.
+ * 
+ * @author Ortis <br>
+ *         2018 Sep 17 8:36:04 PM <br>
+ */
+public class CircuitBreaker
+{
+	public enum State
+	{
+		Closed, Open, HalfOpen
+	}
+
+	private final int failureThreshold;
+	private final long baseOpenMillis;
+	private final long maxOpenMillis;
+
+	private State state = State.Closed;
+	private int failures = 0;
+	private int trips = 0;
+	private long openUntil = 0;
+	private boolean trial = false;
+
+	/**
+	 * 
+	 * @param failureThreshold:
+	 *            number of consecutive failures that opens the breaker
+	 * @param baseOpenDuration:
+	 *            open duration after the first trip. Doubled on each consecutive trip
+	 * @param maxOpenDuration:
+	 *            maximum open duration
+	 */
+	public CircuitBreaker(final int failureThreshold, final Duration baseOpenDuration, final Duration maxOpenDuration)
+	{
+		this.failureThreshold = failureThreshold;
+		if (this.failureThreshold < 1)
+			throw new IllegalArgumentException("Failure threshold cannot be less than 1");
+
+		this.baseOpenMillis = baseOpenDuration.toMillis();
+		this.maxOpenMillis = maxOpenDuration.toMillis();
+		if (this.baseOpenMillis <= 0 || this.maxOpenMillis < this.baseOpenMillis)
+			throw new IllegalArgumentException("Open durations must be positive and max open duration cannot be less than base open duration");
+	}
+
+	/**
+	 * Request the permission to contact the host. Each granted request must be followed by {@link CircuitBreaker#onSuccess()} or
+	 * {@link CircuitBreaker#onFailure()}
+	 * 
+	 * @return true if the request can be performed
+	 */
+	public synchronized boolean tryAcquire()
+	{
+		switch (this.state)
+		{
+			case Closed:
+				return true;
+
+			case Open:
+				if (System.currentTimeMillis() < this.openUntil)
+					return false;
+
+				this.state = State.HalfOpen;
+				this.trial = true;
+				return true;
+
+			case HalfOpen:
+				if (this.trial)
+					return false;
+
+				this.trial = true;
+				return true;
+
+			default:
+				throw new IllegalStateException("Unhandled state " + this.state);
+		}
+	}
+
+	/**
+	 * 
+	 * @return true if a call to {@link CircuitBreaker#tryAcquire()} would currently succeed
+	 */
+	public synchronized boolean isAvailable()
+	{
+		switch (this.state)
+		{
+			case Open:
+				return System.currentTimeMillis() >= this.openUntil;
+
+			case HalfOpen:
+				return !this.trial;
+
+			default:
+				return true;
+		}
+	}
+
+	/**
+	 * Give back a request granted by {@link CircuitBreaker#tryAcquire()} that was not performed
+	 */
+	public synchronized void cancel()
+	{
+		this.trial = false;
+	}
+
+	public synchronized void onSuccess()
+	{
+		this.state = State.Closed;
+		this.failures = 0;
+		this.trips = 0;
+		this.trial = false;
+	}
+
+	public synchronized void onFailure()
+	{
+		this.trial = false;
+		this.failures++;
+
+		if (this.state == State.HalfOpen || this.failures >= this.failureThreshold)
+		{
+			final long openDuration = Math.min(this.maxOpenMillis, this.baseOpenMillis << Math.min(this.trips, 20));
+			this.trips++;
+			this.state = State.Open;
+			this.openUntil = System.currentTimeMillis() + openDuration;
+		}
+	}
+
+	public synchronized State getState()
+	{
+		return this.state;
+	}
+
+	/**
+	 * 
+	 * @return remaining open duration
+	 */
+	public synchronized Duration getRemainingOpenDuration()
+	{
+		return this.state == State.Open ? Duration.ofMillis(Math.max(0, this.openUntil - System.currentTimeMillis())) : Duration.ZERO;
+	}
+
+	@Override
+	public synchronized String toString()
+	{
+		return this.state + (this.state == State.Open ? " (" + getRemainingOpenDuration() + " remaining)" : "");
+	}
+}
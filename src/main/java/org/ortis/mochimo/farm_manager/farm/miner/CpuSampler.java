@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright (C) 2018 Ortis (cao.ortis.org@gmail.com)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+
+package org.ortis.mochimo.farm_manager.farm.miner;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compute CPU utilisation from the counters of <code>/proc/stat</code> and <code>/proc/[pid]/stat</code>. The counters of the previous sample are kept so that the
+ * utilisation is computed as a delta between two samples: no need to block on the remote host like <code>top</code> does. As with <code>top</code>, only the
+ * idle time is idle: iowait counts as used.
+ * 
+ * @author Ortis <br>
+ *         2018 Sep 05 10:27:48 PM <br>
+ */
+public class CpuSampler
+{
+	private final static int UTIME_INDEX = 11;// fields after the command name
+
+	private long previousTotal = -1;
+	private long previousIdle;
+	private Map<String, Long> previousProcessTicks = new HashMap<>();
+
+	/**
+	 * Compute the CPU utilisation since the previous sample. The first sample only sets the reference of the next one
+	 * 
+	 * @param lines:
+	 *            the first line of <code>/proc/stat</code> followed by the content of <code>/proc/[pid]/stat</code> of each monitored process
+	 * @param processCpu:
+	 *            destination of the CPU utilisation of each process, in percentage of the whole host. Processes without previous sample are omitted
+	 * @return the CPU utilisation of the host in percentage or null if the <code>cpu</code> line was not found or if there is no previous sample (first
+	 *         sample, after {@link CpuSampler#reset()} or a host reboot)
+	 */
+	public synchronized Float sample(final List<String> lines, final Map<String, Float> processCpu)
+	{
+		long total = -1;
+		long idle = 0;
+		final Map<String, Long> processTicks = new HashMap<>();
+
+		for (final String line : lines)
+		{
+			if (line.startsWith("cpu "))
+			{
+				total = 0;
+				int start = LineScanner.skipSpaces(line, 4);
+				for (int i = 0; i < 8 && start < line.length(); i++)// user nice system idle iowait irq softirq steal. guest is already in user
+				{
+					final int end = LineScanner.tokenEnd(line, start);
+					final long ticks = LineScanner.parseLong(line, start, end);
+					total += ticks;
+					if (i == 3)// idle. iowait is not idle, as in the 'id' field of top
+						idle = ticks;
+					start = LineScanner.skipSpaces(line, end);
+				}
+
+			} else
+			{
+				final int commandEnd = line.lastIndexOf(')');
+				if (commandEnd < 0)
+					continue;
+
+				int start = LineScanner.skipSpaces(line, commandEnd + 1);
+				for (int i = 0; i < UTIME_INDEX && start < line.length(); i++)
+					start = LineScanner.skipSpaces(line, LineScanner.tokenEnd(line, start));
+
+				final int utimeEnd = LineScanner.tokenEnd(line, start);
+				final long utime = LineScanner.parseLong(line, start, utimeEnd);
+				final int stimeStart = LineScanner.skipSpaces(line, utimeEnd);
+				final long stime = LineScanner.parseLong(line, stimeStart, LineScanner.tokenEnd(line, stimeStart));
+				if (utime < 0 || stime < 0)
+					continue;
+
+				processTicks.put(line.substring(0, LineScanner.tokenEnd(line, 0)), utime + stime);
+			}
+		}
+
+		if (total < 0)
+			return null;
+
+		final long previousTotal = this.previousTotal;
+		final long previousIdle = this.previousIdle;
+		final Map<String, Long> previousProcessTicks = this.previousProcessTicks;
+		this.previousTotal = total;
+		this.previousIdle = idle;
+		this.previousProcessTicks = processTicks;
+
+		// first sample or counter reset (host reboot): the counters hold the average since boot, not the current utilisation
+		if (previousTotal < 0 || total <= previousTotal)
+			return null;
+
+		final long deltaTotal = total - previousTotal;
+		final long deltaIdle = idle - previousIdle;
+		for (final Map.Entry<String, Long> entry : processTicks.entrySet())
+		{
+			final Long previous = previousProcessTicks.get(entry.getKey());
+			if (previous != null && entry.getValue() >= previous)
+				processCpu.put(entry.getKey(), percentage(entry.getValue() - previous, deltaTotal));
+		}
+
+		return percentage(deltaTotal - deltaIdle, deltaTotal);
+	}
+
+	/**
+	 * Forget the previous sample
+	 */
+	public synchronized void reset()
+	{
+		this.previousTotal = -1;
+		this.previousIdle = 0;
+		this.previousProcessTicks = new HashMap<>();
+	}
+
+	private static float percentage(final long ticks, final long total)
+	{
+		return total <= 0 ? 0 : 100f * ticks / total;
+	}
+}
@@ -0,0 +1,230 @@
+/*******************************************************************************
+ * Copyright (C) 2018 Ortis (cao.ortis.org@gmail.com)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+
+package org.ortis.mochimo.farm_manager.farm.miner;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limit the SSH commands sent to a host: at most a fixed number of concurrent commands (semaphore) and a maximum command rate (token bucket). Shared by all the
+ * {@link SSHConnector} of the same host, so that miners sharing a host or a gateway do not exceed the connection limits of its sshd
+ * 
+ * @author Ortis <br>
+ *         2018 Sep 25 9:14:33 PM <br>
+ */
+public class HostLimiter
+{
+	private final String host;
+	private final int concurrency;
+	private final Semaphore semaphore;
+
+	private final double rate;
+	private final double burst;
+	private final ReentrantLock bucketLock = new ReentrantLock();
+	private double tokens;
+	private long lastRefill;
+
+	private final AtomicInteger queued = new AtomicInteger();
+	private final AtomicLong acquired = new AtomicLong();
+	private final AtomicLong totalWait = new AtomicLong();
+	private final AtomicLong maxWait = new AtomicLong();
+
+	/**
+	 * 
+	 * @param host
+	 * @param concurrency:
+	 *            maximum number of concurrent commands
+	 * @param rate:
+	 *            maximum number of commands per second. The bucket holds up to one second of commands
+	 */
+	public HostLimiter(final String host, final int concurrency, final double rate)
+	{
+		this.host = host;
+
+		this.concurrency = concurrency;
+		if (this.concurrency < 1)
+			throw new IllegalArgumentException("Concurrency cannot be less than 1");
+		this.semaphore = new Semaphore(concurrency, true);
+
+		this.rate = rate;
+		if (this.rate <= 0)
+			throw new IllegalArgumentException("Rate must be positive");
+
+		this.burst = Math.max(1, rate);
+		this.tokens = this.burst;
+		this.lastRefill = System.nanoTime();
+	}
+
+	/**
+	 * Wait for a concurrency permit and a rate token. Must be followed by {@link HostLimiter#release()}
+	 * 
+	 * @throws InterruptedException
+	 */
+	public void acquire() throws InterruptedException
+	{
+		final long start = System.nanoTime();
+		this.queued.incrementAndGet();
+		try
+		{
+			this.semaphore.acquire();
+			try
+			{
+				throttle();
+			} catch (final InterruptedException e)
+			{
+				this.semaphore.release();
+				throw e;
+			}
+		} finally
+		{
+			this.queued.decrementAndGet();
+		}
+
+		final long wait = System.nanoTime() - start;
+		this.acquired.incrementAndGet();
+		this.totalWait.addAndGet(wait);
+		this.maxWait.accumulateAndGet(wait, Math::max);
+	}
+
+	public void release()
+	{
+		this.semaphore.release();
+	}
+
+	/**
+	 * Wait for a rate token only. For long running commands that must not hold a concurrency permit
+	 * 
+	 * @throws InterruptedException
+	 */
+	public void throttle() throws InterruptedException
+	{
+		final long wait;
+		this.bucketLock.lock();
+		try
+		{
+			final long now = System.nanoTime();
+			this.tokens = Math.min(this.burst, this.tokens + (now - this.lastRefill) * this.rate / 1e9);
+			this.lastRefill = now;
+
+			// reserve the token: later callers wait behind this one
+			this.tokens -= 1;
+			wait = this.tokens >= 0 ? 0 : (long) (-this.tokens / this.rate * 1e9);
+		} finally
+		{
+			this.bucketLock.unlock();
+		}
+
+		if (wait > 0)
+			TimeUnit.NANOSECONDS.sleep(wait);
+	}
+
+	public String getHost()
+	{
+		return this.host;
+	}
+
+	public int getConcurrency()
+	{
+		return this.concurrency;
+	}
+
+	/**
+	 * 
+	 * @return number of commands running
+	 */
+	public int getInFlight()
+	{
+		return this.concurrency - this.semaphore.availablePermits();
+	}
+
+	/**
+	 * 
+	 * @return number of commands waiting for a permit or a token
+	 */
+	public int getQueued()
+	{
+		return this.queued.get();
+	}
+
+	/**
+	 * 
+	 * @return number of commands allowed since startup
+	 */
+	public long getAcquired()
+	{
+		return this.acquired.get();
+	}
+
+	public Duration getAverageWait()
+	{
+		final long acquired = this.acquired.get();
+		return acquired == 0 ? Duration.ZERO : Duration.ofNanos(this.totalWait.get() / acquired);
+	}
+
+	public Duration getMaxWait()
+	{
+		return Duration.ofNanos(this.maxWait.get());
+	}
+
+	@Override
+	public String toString()
+	{
+		return this.host + " (in flight " + getInFlight() + "/" + this.concurrency + ", queued " + getQueued() + ")";
+	}
+
+	/**
+	 * {@link HostLimiter} by hostname
+	 */
+	public static class Registry
+	{
+		private final int concurrency;
+		private final double rate;
+		private final Map<String, HostLimiter> limiters = new ConcurrentHashMap<>();
+
+		/**
+		 * 
+		 * @param concurrency:
+		 *            maximum number of concurrent commands per host
+		 * @param rate:
+		 *            maximum number of commands per second per host
+		 */
+		public Registry(final int concurrency, final double rate)
+		{
+			this.concurrency = concurrency;
+			this.rate = rate;
+		}
+
+		/**
+		 * 
+		 * @param hostname
+		 * @return the {@link HostLimiter} of the host. Miners on different ports of the same host (ex: behind a gateway) share the same limiter
+		 */
+		public HostLimiter get(final String hostname)
+		{
+			return this.limiters.computeIfAbsent(hostname, h -> new HostLimiter(h, this.concurrency, this.rate));
+		}
+
+		public Map<String, HostLimiter> getLimiters()
+		{
+			return this.limiters;
+		}
+	}
+}
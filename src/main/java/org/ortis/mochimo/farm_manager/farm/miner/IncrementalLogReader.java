@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (C) 2018 Ortis (cao.ortis.org@gmail.com)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+
+package org.ortis.mochimo.farm_manager.farm.miner;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Read the miner log incrementally: only the bytes written since the previous read are fetched. The inode and byte offset of the last read are checkpointed so
+ * that truncation (<code>echo '' > miner.log</code>) and rotation of the log are detected. The state of the {@link MinerLogParser} carries over between chunks.
+ * 
+ * @author Ortis <br>
+ *         2018 Sep 10 9:15:33 PM <br>
+ */
+public class IncrementalLogReader
+{
+	private final static String END_MARKER = "#mfm-end";
+	private final static String RESET = "reset";
+	private final static long MAX_INITIAL_READ = 65536;
+
+	private final String logFile;
+	private final MinerLogParser parser;
+
+	private String inode = "";
+	private long offset = 0;
+
+	public IncrementalLogReader(final String logFile, final MinerLogParser parser)
+	{
+		this.logFile = logFile;
+		this.parser = parser;
+	}
+
+	/**
+	 * Build the command that reads the bytes written since the last checkpoint. The first line of the output is
+	 * <code>[inode] [start offset] [file size] [reset|resume]</code>, followed by the content of the log and terminated by an end marker
+	 * 
+	 * @return the command to execute on the miner host
+	 */
+	public synchronized String command()
+	{
+		final StringBuilder sb = new StringBuilder();
+		sb.append("F='").append(this.logFile.replace("'", "'\\''")).append("' ; if [ -f \"$F\" ] ; then set -- $(stat -c '%i %s' \"$F\")");
+		sb.append(" ; if [ \"$1\" = '").append(this.inode).append("' ] && [ \"$2\" -ge ").append(this.offset).append(" ]");
+		if (this.offset > 0)// the checkpoint is always set after a new line: detect a truncated file that grew past the checkpoint
+			sb.append(" && [ \"$(tail -c +").append(this.offset).append(" \"$F\" | head -c 1 | od -An -tx1 | tr -d ' ')\" = 0a ]");
+		sb.append(" ; then O=").append(this.offset).append(" ; S=resume");
+		sb.append(" ; else O=$(( $2 > ").append(MAX_INITIAL_READ).append(" ? $2 - ").append(MAX_INITIAL_READ).append(" : 0 )) ; S=").append(RESET).append(" ; fi");
+		sb.append(" ; echo \"$1 $O $2 $S\" ; tail -c +$(( O + 1 )) \"$F\" | head -c $(( $2 - O )) ; echo '").append(END_MARKER).append("' ; fi");
+		return sb.toString();
+	}
+
+	/**
+	 * Parse the output of {@link IncrementalLogReader#command()} and move the checkpoint forward
+	 * 
+	 * @param lines:
+	 *            output of the command
+	 */
+	public synchronized void accept(final List<String> lines)
+	{
+		if (lines.size() < 2)
+			return;// log file not found
+
+		final String last = lines.get(lines.size() - 1);
+		if (!last.endsWith(END_MARKER))
+			throw new IllegalStateException("Incomplete log chunk of " + this.logFile);
+
+		final String [] header = lines.get(0).trim().split(" +");
+		if (header.length < 4)
+			throw new IllegalStateException("Unexpected log chunk header '" + lines.get(0) + "'");
+
+		final String inode = header[0];
+		final long start = Long.parseLong(header[1]);
+		final long size = Long.parseLong(header[2]);
+		final boolean reset = RESET.equals(header[3]);
+
+		if (reset)
+			this.parser.reset();
+
+		// the first line is truncated when the read does not start at the beginning of the file
+		final int first = reset && start > 0 ? 2 : 1;
+		for (int i = first; i < lines.size() - 1; i++)
+			try
+			{
+				this.parser.accept(lines.get(i));
+			} catch (final RuntimeException e)
+			{// skip malformed line
+			}
+
+		// an unterminated last line is read again on the next poll
+		final String partial = last.substring(0, last.length() - END_MARKER.length());
+		this.inode = inode;
+		this.offset = first < lines.size() ? size - partial.getBytes(StandardCharsets.UTF_8).length : size;
+	}
+
+	public synchronized long getOffset()
+	{
+		return this.offset;
+	}
+
+	public synchronized String getInode()
+	{
+		return this.inode;
+	}
+
+}
@@ -0,0 +1,200 @@
+/*******************************************************************************
+ * Copyright (C) 2018 Ortis (cao.ortis.org@gmail.com)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+
+package org.ortis.mochimo.farm_manager.farm.miner;
+
+/**
+ * Regex free scanning of command output lines. Work directly on the {@link CharSequence}: no intermediate {@link String} is created.
+ * 
+ * @author Ortis <br>
+ *         2018 Sep 12 8:21:40 PM <br>
+ */
+public final class LineScanner
+{
+
+	private LineScanner()
+	{
+	}
+
+	/**
+	 * 
+	 * @param line
+	 * @param from
+	 * @return index of the first non whitespace character at or after from
+	 */
+	public static int skipSpaces(final CharSequence line, int from)
+	{
+		final int length = line.length();
+		while (from < length && isSpace(line.charAt(from)))
+			from++;
+		return from;
+	}
+
+	/**
+	 * 
+	 * @param line
+	 * @param from
+	 * @return index of the first whitespace character at or after from
+	 */
+	public static int tokenEnd(final CharSequence line, int from)
+	{
+		final int length = line.length();
+		while (from < length && !isSpace(line.charAt(from)))
+			from++;
+		return from;
+	}
+
+	/**
+	 * 
+	 * @param line
+	 * @param count:
+	 *            number of whitespace separated fields to skip
+	 * @return index of the first character of the field following the skipped ones
+	 */
+	public static int skipFields(final CharSequence line, final int count)
+	{
+		int index = skipSpaces(line, 0);
+		for (int i = 0; i < count; i++)
+			index = skipSpaces(line, tokenEnd(line, index));
+		return index;
+	}
+
+	/**
+	 * Parse a positive decimal number
+	 * 
+	 * @param line
+	 * @param from
+	 * @param to
+	 * @return the parsed number or -1 if the region is empty or is not a number
+	 */
+	public static long parseLong(final CharSequence line, final int from, final int to)
+	{
+		return parseLong(line, from, to, 10);
+	}
+
+	/**
+	 * Parse a positive number
+	 * 
+	 * @param line
+	 * @param from
+	 * @param to
+	 * @param radix
+	 * @return the parsed number or -1 if the region is empty or is not a number
+	 */
+	public static long parseLong(final CharSequence line, final int from, final int to, final int radix)
+	{
+		if (from >= to)
+			return -1;
+
+		long value = 0;
+		for (int i = from; i < to; i++)
+		{
+			final int digit = Character.digit(line.charAt(i), radix);
+			if (digit < 0)
+				return -1;
+			value = value * radix + digit;
+		}
+		return value;
+	}
+
+	/**
+	 * 
+	 * @param line
+	 * @param needle
+	 * @param from
+	 * @return index of the first occurrence of needle at or after from, -1 if not found
+	 */
+	public static int indexOf(final CharSequence line, final String needle, final int from)
+	{
+		final int last = line.length() - needle.length();
+		final char first = needle.charAt(0);
+		for (int i = Math.max(from, 0); i <= last; i++)
+		{
+			if (line.charAt(i) != first)
+				continue;
+
+			int j = 1;
+			while (j < needle.length() && line.charAt(i + j) == needle.charAt(j))
+				j++;
+
+			if (j == needle.length())
+				return i;
+		}
+		return -1;
+	}
+
+	public static boolean contains(final CharSequence line, final String needle, final int from)
+	{
+		return indexOf(line, needle, from) >= 0;
+	}
+
+	/**
+	 * 
+	 * @param line
+	 * @param needle
+	 * @param from
+	 * @return index of the first occurrence of needle at or after from that is followed by a whitespace or the end of the line, -1 if not found
+	 */
+	public static int indexOfTokenEnd(final CharSequence line, final String needle, final int from)
+	{
+		int index = indexOf(line, needle, from);
+		while (index >= 0)
+		{
+			final int end = index + needle.length();
+			if (end == line.length() || isSpace(line.charAt(end)))
+				return index;
+			index = indexOf(line, needle, index + 1);
+		}
+		return -1;
+	}
+
+	/**
+	 * 
+	 * @param value
+	 * @param line
+	 * @param from
+	 * @param to
+	 * @return true if the region of line is equal to value
+	 */
+	public static boolean regionEquals(final String value, final CharSequence line, final int from, final int to)
+	{
+		if (value == null || value.length() != to - from)
+			return false;
+
+		for (int i = from; i < to; i++)
+			if (value.charAt(i - from) != line.charAt(i))
+				return false;
+
+		return true;
+	}
+
+	/**
+	 * 
+	 * @param line
+	 * @param from
+	 * @param to
+	 * @return index following the last non whitespace character of the region
+	 */
+	public static int trimEnd(final CharSequence line, final int from, int to)
+	{
+		while (to > from && isSpace(line.charAt(to - 1)))
+			to--;
+		return to;
+	}
+
+	private static boolean isSpace(final char c)
+	{
+		return c == ' ' || c == '\t';
+	}
+}
@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (C) 2018 Ortis (cao.ortis.org@gmail.com)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+
+package org.ortis.mochimo.farm_manager.farm.miner;
+
+import java.io.InterruptedIOException;
+import java.util.logging.Logger;
+
+import org.ortis.mochimo.farm_manager.utils.Utils;
+
+/**
+ * Keep a <code>tail -F</code> channel open on the miner log and push each new line to a {@link LineConsumer}. The channel is reopened with an exponential backoff when
+ * it closes.
+ * 
+ * @author Ortis <br>
+ *         2018 Sep 08 4:47:55 PM <br>
+ */
+public class LogTailer implements Runnable
+{
+	private final static int BACKLOG = 500;
+	private final static long MIN_BACKOFF = 1000;
+	private final static long MAX_BACKOFF = 60000;
+
+	private final SSHConnector connector;
+	private final String logFile;
+	private final LineConsumer consumer;
+	private final Logger log;
+
+	public LogTailer(final SSHConnector connector, final String logFile, final LineConsumer consumer, final Logger log)
+	{
+		this.connector = connector;
+		this.logFile = logFile;
+		this.consumer = consumer;
+		this.log = log;
+	}
+
+	@Override
+	public void run()
+	{
+		this.log.fine("Log stream started");
+		final String command = "tail -n " + BACKLOG + " -F '" + this.logFile.replace("'", "'\\''") + "'";
+		long backoff = MIN_BACKOFF;
+		try
+		{
+			while (!Thread.interrupted())
+			{
+				final long start = System.currentTimeMillis();
+				try
+				{
+					this.connector.stream(command, this.consumer);
+					this.log.fine("Log stream closed");
+				} catch (final InterruptedIOException e)
+				{
+					throw new InterruptedException(e.toString());
+
+				} catch (final InterruptedException e)
+				{
+					throw e;
+
+				} catch (final Exception e)
+				{
+					this.log.warning("Log stream failed - " + Utils.formatException(e));
+				}
+
+				if (System.currentTimeMillis() - start > MAX_BACKOFF)
+					backoff = MIN_BACKOFF;// stream was healthy
+
+				this.log.fine("Reopening log stream in " + backoff + " ms");
+				Thread.sleep(backoff);
+				backoff = Math.min(backoff * 2, MAX_BACKOFF);
+			}
+		} catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		} finally
+		{
+			this.log.fine("Log stream stopped");
+		}
+	}
+
+}
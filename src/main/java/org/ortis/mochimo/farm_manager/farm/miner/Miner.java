@@ -27,6 +27,16 @@ import org.ortis.mochimo.farm_manager.network.consensus.NetworkConsensus;
 public interface Miner
 {
 
+	/**
+	 * Open the resources of the miner (log stream, etc)
+	 */
+	void open();
+
+	/**
+	 * Release the resources of the miner (log stream, connections, etc)
+	 */
+	void close();
+
 	boolean start() throws Exception;
 
 	boolean stop() throws Exception;
@@ -35,6 +45,12 @@ public interface Miner
 
 	boolean isRunning() throws Exception;
 
+	/**
+	 * 
+	 * @return false if the miner is known to be unreachable: remote operations would fail without contacting the host
+	 */
+	boolean isReachable();
+
 	/**
 	 * Update {@link MinerStatistics}
 	 */
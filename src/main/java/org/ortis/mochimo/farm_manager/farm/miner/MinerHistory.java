@@ -0,0 +1,244 @@
+/*******************************************************************************
+ * Copyright (C) 2018 Ortis (cao.ortis.org@gmail.com)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+package org.ortis.mochimo.farm_manager.farm.miner;
+
+import java.util.Arrays;
+
+/**
+ * Fixed capacity history of the {@link MinerStatistics} of a miner: hash rate, CPU, height and solved blocks. Samples are stored in primitive ring buffers
+ * so that the memory of a miner is bounded and recording does not allocate. Once full, the oldest sample is overwritten
+ * <p>
+ * Unknown values are stored as {@link Float#NaN} or -1
+ * 
+ * @author Ortis <br>
+ *         2018 Oct 01 9:16:25 PM <br>
+ */
+public class MinerHistory
+{
+	/**
+	 * Samples of a time range, from the oldest to the newest
+	 */
+	public static class Samples
+	{
+		public final static Samples EMPTY = new Samples(0);
+
+		private final long [] times;
+		private final float [] hps;
+		private final float [] cpu;
+		private final int [] heights;
+		private final int [] solved;
+
+		private Samples(final int size)
+		{
+			this.times = new long[size];
+			this.hps = new float[size];
+			this.cpu = new float[size];
+			this.heights = new int[size];
+			this.solved = new int[size];
+		}
+
+		public int size()
+		{
+			return this.times.length;
+		}
+
+		/**
+		 * 
+		 * @param index
+		 * @return time of the sample in milli seconds since epoch
+		 */
+		public long getTime(final int index)
+		{
+			return this.times[index];
+		}
+
+		public float getHps(final int index)
+		{
+			return this.hps[index];
+		}
+
+		public float getCpu(final int index)
+		{
+			return this.cpu[index];
+		}
+
+		public int getHeight(final int index)
+		{
+			return this.heights[index];
+		}
+
+		public int getSolved(final int index)
+		{
+			return this.solved[index];
+		}
+	}
+
+	private final long [] times;
+	private final float [] hps;
+	private final float [] cpu;
+	private final int [] heights;
+	private final int [] solved;
+
+	private int head = 0;// index of the next sample
+	private int size = 0;
+
+	/**
+	 * 
+	 * @param capacity:
+	 *            maximum number of samples
+	 */
+	public MinerHistory(final int capacity)
+	{
+		if (capacity < 1)
+			throw new IllegalArgumentException("Capacity cannot be less than 1");
+
+		this.times = new long[capacity];
+		this.hps = new float[capacity];
+		this.cpu = new float[capacity];
+		this.heights = new int[capacity];
+		this.solved = new int[capacity];
+	}
+
+	/**
+	 * Record a sample. A sample with the same time as the newest one replaces it (statistics updated by the log stream keep the time of the probe). A sample
+	 * older than the newest one is dropped, so that the samples stay sorted if the clock steps back
+	 * 
+	 * @param time:
+	 *            milli seconds since epoch
+	 * @param hps
+	 * @param cpu
+	 * @param height
+	 * @param solved
+	 */
+	public synchronized void record(final long time, final float hps, final float cpu, final int height, final int solved)
+	{
+		if (this.size > 0 && time < this.times[physical(this.size - 1)])
+			return;
+
+		final int index;
+		if (this.size > 0 && this.times[physical(this.size - 1)] == time)
+			index = physical(this.size - 1);
+		else
+		{
+			index = this.head;
+			this.head = (this.head + 1) % this.times.length;
+			if (this.size < this.times.length)
+				this.size++;
+		}
+
+		this.times[index] = time;
+		this.hps[index] = hps;
+		this.cpu[index] = cpu;
+		this.heights[index] = height;
+		this.solved[index] = solved;
+	}
+
+	/**
+	 * Record the statistics of a probe. Default statistics are ignored
+	 * 
+	 * @param time:
+	 *            time of the statistics in milli seconds since epoch
+	 * @param statistics
+	 */
+	public void record(final long time, final MinerStatistics statistics)
+	{
+		if (statistics.isDefault())
+			return;
+
+		record(time, statistics.hasHps() ? (float) statistics.getHps() : Float.NaN, statistics.getCpu(),
+				statistics.hasHeight() ? (int) statistics.getHeight() : -1, statistics.hasSolved() ? (int) statistics.getSolved() : -1);
+	}
+
+	/**
+	 * 
+	 * @param from:
+	 *            inclusive, milli seconds since epoch
+	 * @param to:
+	 *            inclusive, milli seconds since epoch
+	 * @return copy of the samples recorded between from and to
+	 */
+	public synchronized Samples query(final long from, final long to)
+	{
+		final int start = lowerBound(from);
+		final int end = to == Long.MAX_VALUE ? this.size : lowerBound(to + 1);
+		final Samples samples = new Samples(Math.max(0, end - start));
+		for (int i = 0; i < samples.size(); i++)
+		{
+			final int index = physical(start + i);
+			samples.times[i] = this.times[index];
+			samples.hps[i] = this.hps[index];
+			samples.cpu[i] = this.cpu[index];
+			samples.heights[i] = this.heights[index];
+			samples.solved[i] = this.solved[index];
+		}
+		return samples;
+	}
+
+	/**
+	 * 
+	 * @return time of the newest sample, {@link Long#MIN_VALUE} if empty
+	 */
+	public synchronized long getNewestTime()
+	{
+		return this.size == 0 ? Long.MIN_VALUE : this.times[physical(this.size - 1)];
+	}
+
+	public synchronized int size()
+	{
+		return this.size;
+	}
+
+	public int getCapacity()
+	{
+		return this.times.length;
+	}
+
+	public synchronized void clear()
+	{
+		this.head = 0;
+		this.size = 0;
+		Arrays.fill(this.times, 0);
+	}
+
+	/**
+	 * 
+	 * @param time
+	 * @return logical index of the first sample at or after time
+	 */
+	private int lowerBound(final long time)
+	{
+		int low = 0;
+		int high = this.size;
+		while (low < high)
+		{
+			final int middle = (low + high) >>> 1;
+			if (this.times[physical(middle)] < time)
+				low = middle + 1;
+			else
+				high = middle;
+		}
+		return low;
+	}
+
+	/**
+	 * 
+	 * @param logical:
+	 *            0 for the oldest sample
+	 * @return index in the buffers
+	 */
+	private int physical(final int logical)
+	{
+		return (this.head - this.size + logical + this.times.length) % this.times.length;
+	}
+}
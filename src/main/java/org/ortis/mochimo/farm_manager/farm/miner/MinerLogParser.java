@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright (C) 2018 Ortis (cao.ortis.org@gmail.com)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+
+package org.ortis.mochimo.farm_manager.farm.miner;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Incremental parser of the miner log. Lines can be fed one at a time as they are written: the parser keeps the latest value of each statistic. Known
+ * statistics are parsed to numbers as they are read
+ * 
+ * @author Ortis <br>
+ *         2018 Sep 08 3:02:19 PM <br>
+ */
+public class MinerLogParser
+{
+	private final static String HPS = "Haiku/second";
+	private final static String SOLVED = "Solved";
+	private final static String DIFFICULTY = "Difficulty";
+
+	private double hps = Double.NaN;
+	private long solved = MinerStatistics.UNKNOWN;
+	private long difficulty = MinerStatistics.UNKNOWN;
+	private long height = MinerStatistics.UNKNOWN;
+	private final Map<String, String> extensions = new LinkedHashMap<>();
+
+	/**
+	 * Parse a line of the miner log
+	 * 
+	 * @param line:
+	 *            a line of the miner log
+	 * @return true if a statistic was updated
+	 */
+	public synchronized boolean accept(final String line)
+	{
+		boolean updated = false;
+
+		if (LineScanner.contains(line, HPS + ":", 0) || LineScanner.contains(line, SOLVED, 0))
+		{// pairs of 'key: value'
+			int start = LineScanner.skipSpaces(line, 0);
+			while (start < line.length())
+			{
+				final int end = LineScanner.tokenEnd(line, start);
+				final int valueStart = LineScanner.skipSpaces(line, end);
+				if (line.charAt(end - 1) == ':' && valueStart < line.length())
+				{
+					final int valueEnd = LineScanner.tokenEnd(line, valueStart);
+					updated |= put(line, start, end - 1, valueStart, valueEnd);
+					start = LineScanner.skipSpaces(line, valueEnd);
+				} else
+					start = valueStart;
+			}
+
+		} else
+		{
+			final int index = LineScanner.indexOf(line, ": 0x", 0);
+			if (index >= 0)
+			{
+				final int hexStart = index + 4;
+				final int hexEnd = LineScanner.tokenEnd(line, hexStart);
+				final long height = LineScanner.parseLong(line, hexStart, hexEnd, 16);
+				if (height >= 0 && height != this.height)
+				{
+					this.height = height;
+					updated = true;
+				}
+			}
+		}
+
+		return updated;
+	}
+
+	/**
+	 * Copy the parsed statistics to a {@link MinerStatistics}
+	 * 
+	 * @param destination
+	 */
+	public synchronized void apply(final MinerStatistics destination)
+	{
+		destination.setHps(this.hps);
+		destination.setSolved(this.solved);
+		destination.setDifficulty(this.difficulty);
+		destination.setHeight(this.height);
+		for (final Map.Entry<String, String> entry : this.extensions.entrySet())
+			destination.setExtension(entry.getKey(), entry.getValue());
+	}
+
+	/**
+	 * Forget parsed statistics. Should be called when the log file is reset
+	 */
+	public synchronized void reset()
+	{
+		this.hps = Double.NaN;
+		this.solved = MinerStatistics.UNKNOWN;
+		this.difficulty = MinerStatistics.UNKNOWN;
+		this.height = MinerStatistics.UNKNOWN;
+		this.extensions.clear();
+	}
+
+	private boolean put(final String line, final int keyStart, final int keyEnd, final int valueStart, final int valueEnd)
+	{
+		if (LineScanner.regionEquals(HPS, line, keyStart, keyEnd))
+		{
+			final double hps;
+			try
+			{
+				hps = Double.parseDouble(line.substring(valueStart, valueEnd));
+			} catch (final NumberFormatException e)
+			{
+				return false;
+			}
+
+			if (Double.compare(hps, this.hps) == 0)
+				return false;
+
+			this.hps = hps;
+			return true;
+
+		} else if (LineScanner.regionEquals(SOLVED, line, keyStart, keyEnd))
+		{
+			final long solved = LineScanner.parseLong(line, valueStart, valueEnd);
+			if (solved < 0 || solved == this.solved)
+				return false;
+
+			this.solved = solved;
+			return true;
+
+		} else if (LineScanner.regionEquals(DIFFICULTY, line, keyStart, keyEnd))
+		{
+			final long difficulty = LineScanner.parseLong(line, valueStart, valueEnd);
+			if (difficulty < 0 || difficulty == this.difficulty)
+				return false;
+
+			this.difficulty = difficulty;
+			return true;
+		}
+
+		// unknown statistic: kept as text
+		final String key = line.substring(keyStart, keyEnd);
+		if (LineScanner.regionEquals(this.extensions.get(key), line, valueStart, valueEnd))
+			return false;
+
+		this.extensions.put(key, line.substring(valueStart, valueEnd));
+		return true;
+	}
+
+}
@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright (C) 2018 Ortis (cao.ortis.org@gmail.com)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+
+package org.ortis.mochimo.farm_manager.farm.miner;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable result of one probe of a {@link Miner}. Consumed by both the statistics and the policy evaluation, so that a single SSH round trip serves both
+ * 
+ * @author Ortis <br>
+ *         2018 Sep 22 4:31:19 PM <br>
+ */
+public final class MinerObservation
+{
+	private final long nanoTime;
+	private final List<String> pids;
+	private final MinerStatistics statistics;
+
+	/**
+	 * 
+	 * @param pids:
+	 *            pids of the mochimo and gomochi processes
+	 * @param statistics:
+	 *            {@link MinerStatistics} built from the probe. Must not be modified afterward
+	 */
+	public MinerObservation(final List<String> pids, final MinerStatistics statistics)
+	{
+		this.nanoTime = System.nanoTime();
+		this.pids = Collections.unmodifiableList(new ArrayList<>(pids));
+		this.statistics = statistics;
+	}
+
+	/**
+	 * 
+	 * @return true if a mochimo or gomochi process was running
+	 */
+	public boolean isRunning()
+	{
+		return !this.pids.isEmpty();
+	}
+
+	public List<String> getPids()
+	{
+		return this.pids;
+	}
+
+	public MinerStatistics getStatistics()
+	{
+		return this.statistics;
+	}
+
+	public Duration getAge()
+	{
+		return Duration.ofNanos(System.nanoTime() - this.nanoTime);
+	}
+
+	@Override
+	public String toString()
+	{
+		return "pids=" + this.pids + ", age=" + getAge();
+	}
+}
@@ -23,30 +23,69 @@ import java.util.Map;
 import java.util.function.Supplier;
 
 /**
- * Mining statistics of a {@link Miner}
+ * Mining statistics of a {@link Miner}. Statistics of the miner log are parsed once when they are collected: hash rate, solved blocks, difficulty and
+ * height are stored as primitives. Unknown statistics are kept as text in the extensions
  * 
  * @author Ortis <br>
  *         2018 Jul 02 11:03:52 PM <br>
  */
 public class MinerStatistics
 {
+	/**
+	 * Value of an unknown counter
+	 */
+	public final static long UNKNOWN = -1;
+
 	private final LocalDateTime time;
 	private final String minerId;
 	private Float cpu = null;
+	private Map<String, Float> processCpu;
 	private List<String> processes;
+	private List<String> pids;
 	private Boolean gomochi;
 	private Boolean listen;
 	private Boolean solving;
 	private Boolean syncing;
+	private Boolean reachable;
 
-	private Map<String, String> statistics;
+	private double hps = Double.NaN;
+	private long solved = UNKNOWN;
+	private long difficulty = UNKNOWN;
+	private long height = UNKNOWN;
+	private Map<String, String> extensions;
 
 	public MinerStatistics(final String minerId, final LocalDateTime time)
 	{
 		this.minerId = minerId;
 		this.time = time;
 		this.processes = new ArrayList<>();
-		this.statistics = new HashMap<>();
+		this.pids = new ArrayList<>();
+		this.processCpu = new HashMap<>();
+		this.extensions = new HashMap<>();
+	}
+
+	/**
+	 * 
+	 * @return a copy of this {@link MinerStatistics} with the same time
+	 */
+	public MinerStatistics copy()
+	{
+		final MinerStatistics copy = new MinerStatistics(this.minerId, this.time);
+		copy.cpu = this.cpu;
+		copy.processCpu.putAll(this.processCpu);
+		copy.processes.addAll(this.processes);
+		copy.pids.addAll(this.pids);
+		copy.gomochi = this.gomochi;
+		copy.listen = this.listen;
+		copy.solving = this.solving;
+		copy.syncing = this.syncing;
+		copy.reachable = this.reachable;
+		copy.hps = this.hps;
+		copy.solved = this.solved;
+		copy.difficulty = this.difficulty;
+		copy.height = this.height;
+		copy.extensions.putAll(this.extensions);
+		return copy;
 	}
 
 	public String getMinerId()
@@ -59,14 +98,112 @@ public class MinerStatistics
 		return time;
 	}
 
-	public Map<String, String> getStatistics()
+	/**
+	 * 
+	 * @return true if at least one statistic of the miner log is known
+	 */
+	public boolean hasLogStatistics()
+	{
+		return hasHps() || hasSolved() || hasDifficulty() || hasHeight() || !this.extensions.isEmpty();
+	}
+
+	public boolean hasHps()
+	{
+		return !Double.isNaN(this.hps);
+	}
+
+	/**
+	 * 
+	 * @return hash rate in haiku per second, {@link Double#NaN} if unknown
+	 */
+	public double getHps()
+	{
+		return hps;
+	}
+
+	public void setHps(final double hps)
+	{
+		this.hps = hps;
+	}
+
+	public boolean hasSolved()
+	{
+		return this.solved != UNKNOWN;
+	}
+
+	/**
+	 * 
+	 * @return number of solved blocks, {@link MinerStatistics#UNKNOWN} if unknown
+	 */
+	public long getSolved()
+	{
+		return solved;
+	}
+
+	public void setSolved(final long solved)
+	{
+		this.solved = solved;
+	}
+
+	public boolean hasDifficulty()
+	{
+		return this.difficulty != UNKNOWN;
+	}
+
+	/**
+	 * 
+	 * @return difficulty, {@link MinerStatistics#UNKNOWN} if unknown
+	 */
+	public long getDifficulty()
+	{
+		return difficulty;
+	}
+
+	public void setDifficulty(final long difficulty)
+	{
+		this.difficulty = difficulty;
+	}
+
+	public boolean hasHeight()
+	{
+		return this.height != UNKNOWN;
+	}
+
+	/**
+	 * 
+	 * @return block height, {@link MinerStatistics#UNKNOWN} if unknown
+	 */
+	public long getHeight()
 	{
-		return statistics;
+		return height;
 	}
 
-	public void setStatistics(final String key, final String value)
+	public void setHeight(final long height)
 	{
-		this.statistics.put(key, value);
+		this.height = height;
+	}
+
+	/**
+	 * 
+	 * @return block number in hexadecimal (<code>0x2a</code>), null if unknown
+	 */
+	public String getBlock()
+	{
+		return hasHeight() ? "0x" + Long.toHexString(this.height) : null;
+	}
+
+	/**
+	 * 
+	 * @return statistics of the miner log that have no dedicated field
+	 */
+	public Map<String, String> getExtensions()
+	{
+		return extensions;
+	}
+
+	public void setExtension(final String key, final String value)
+	{
+		this.extensions.put(key, value);
 	}
 
 	public Float getCpu()
@@ -79,6 +216,15 @@ public class MinerStatistics
 		this.cpu = cpu;
 	}
 
+	/**
+	 * 
+	 * @return CPU utilisation of mochimo processes by pid, in percentage of the whole host
+	 */
+	public Map<String, Float> getProcessCpu()
+	{
+		return processCpu;
+	}
+
 	public List<String> getProcesses()
 	{
 		return processes;
@@ -89,6 +235,15 @@ public class MinerStatistics
 		this.processes.add(process);
 	}
 
+	/**
+	 * 
+	 * @return pids of the mochimo and gomochi processes
+	 */
+	public List<String> getPids()
+	{
+		return pids;
+	}
+
 	public Boolean isGomochi()
 	{
 		return this.gomochi;
@@ -129,6 +284,20 @@ public class MinerStatistics
 		return this.syncing;
 	}
 
+	/**
+	 * 
+	 * @return false if the miner could not be contacted, null if unknown
+	 */
+	public Boolean isReachable()
+	{
+		return this.reachable;
+	}
+
+	public void setReachable(final boolean reachable)
+	{
+		this.reachable = reachable;
+	}
+
 	public boolean isRunning()
 	{
 		return !this.processes.isEmpty();
@@ -0,0 +1,33 @@
+/*******************************************************************************
+ * Copyright (C) 2018 Ortis (cao.ortis.org@gmail.com)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+package org.ortis.mochimo.farm_manager.farm.miner;
+
+/**
+ * Notified each time the {@link MinerStatistics} of a {@link Miner} are replaced
+ * 
+ * @author Ortis <br>
+ *         2018 Sep 29 4:12:51 PM <br>
+ */
+public interface MinerStatisticsListener
+{
+	/**
+	 * Called while the statistics of the miner are locked: calls for a given miner are ordered. Must not block
+	 * 
+	 * @param previous:
+	 *            replaced statistics, null on the first call
+	 * @param current:
+	 *            new statistics
+	 */
+	void onStatistics(final MinerStatistics previous, final MinerStatistics current);
+}
@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (C) 2018 Ortis (cao.ortis.org@gmail.com)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+
+package org.ortis.mochimo.farm_manager.farm.miner;
+
+/**
+ * Reusable parser of a <code>ps faux</code> line. Extract the pid, the command and the role of mochimo sub-processes without regex nor intermediate {@link String}.
+ * 
+ * @author Ortis <br>
+ *         2018 Sep 12 9:05:13 PM <br>
+ */
+public class ProcessLine
+{
+	private final static int COMMAND_FIELD = 10;// USER PID %CPU %MEM VSZ RSS TTY STAT START TIME COMMAND
+	private final static String MOCHIMO = "mochimo ";
+
+	private CharSequence line;
+	private long pid;
+	private int commandStart;
+	private boolean grep;
+	private boolean gomochi;
+	private int roleStart;
+	private int roleEnd;
+
+	/**
+	 * Parse a line. The previous state is discarded
+	 * 
+	 * @param line:
+	 *            a line of <code>ps faux</code>
+	 * @return false if the line is not a process line
+	 */
+	public boolean parse(final CharSequence line)
+	{
+		this.line = line;
+		this.roleStart = this.roleEnd = -1;
+
+		// skip username in case it is 'mochimo' or 'gomochi'
+		final int pidStart = LineScanner.skipFields(line, 1);
+		final int pidEnd = LineScanner.tokenEnd(line, pidStart);
+		this.pid = LineScanner.parseLong(line, pidStart, pidEnd);
+		this.commandStart = LineScanner.skipFields(line, COMMAND_FIELD);
+		if (this.pid < 0)
+		{
+			this.grep = this.gomochi = false;
+			return false;
+		}
+
+		this.grep = LineScanner.contains(line, "grep", pidEnd);
+		// 'gomochi' must end the token: 'gomochi.sh' or 'gomochi2' are not the wrapper script
+		this.gomochi = LineScanner.indexOfTokenEnd(line, "gomochi", pidEnd) >= 0;
+
+		if (!this.gomochi)
+		{
+			final int mochimo = LineScanner.indexOf(line, MOCHIMO, pidEnd);
+			if (mochimo >= 0)
+			{
+				this.roleStart = LineScanner.skipSpaces(line, mochimo + MOCHIMO.length());
+				int end = LineScanner.indexOf(line, MOCHIMO, this.roleStart);
+				end = end < 0 ? line.length() : end;
+				this.roleEnd = LineScanner.trimEnd(line, this.roleStart, end);
+			}
+		}
+
+		return true;
+	}
+
+	public long getPid()
+	{
+		return this.pid;
+	}
+
+	/**
+	 * 
+	 * @return true if the line is the <code>grep</code> used to filter the process table
+	 */
+	public boolean isGrep()
+	{
+		return this.grep;
+	}
+
+	public boolean isGomochi()
+	{
+		return this.gomochi;
+	}
+
+	/**
+	 * 
+	 * @return true if the process is a mochimo process with a role (arguments)
+	 */
+	public boolean hasRole()
+	{
+		return this.roleStart >= 0 && this.roleEnd > this.roleStart;
+	}
+
+	/**
+	 * 
+	 * @return the role of a mochimo process or null
+	 */
+	public String getRole()
+	{
+		return hasRole() ? this.line.subSequence(this.roleStart, this.roleEnd).toString() : null;
+	}
+
+	/**
+	 * 
+	 * @return the command of the process
+	 */
+	public CharSequence getCommand()
+	{
+		return this.line.subSequence(this.commandStart, this.line.length());
+	}
+}
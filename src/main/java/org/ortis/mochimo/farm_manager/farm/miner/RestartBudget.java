@@ -0,0 +1,212 @@
+/*******************************************************************************
+ * Copyright (C) 2018 Ortis (cao.ortis.org@gmail.com)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+package org.ortis.mochimo.farm_manager.farm.miner;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Farm wide budget of policy restarts: at most a fixed number of restarts over a sliding window. Shared by all the miners of the farm, so that a bogus
+ * network height or a network wide event cannot restart the whole farm at once
+ * <p>
+ * Restarts refused by the budget are deferred: the miner keeps asking on each policy check. When restarts become available again, they are granted to
+ * the most severe pending request first, then to the oldest: a request is granted while the pending requests ranked before it leave a restart for it
+ * 
+ * @author Ortis <br>
+ *         2018 Sep 27 7:42:18 PM <br>
+ */
+public class RestartBudget
+{
+	/**
+	 * Restart triggers, from the least to the most severe
+	 */
+	public enum Severity
+	{
+		Uptime, Lag, Downtime
+	}
+
+	private static class Request
+	{
+		private final Severity severity;
+		private final long since;
+		private long lastSeen;
+
+		private Request(final Severity severity, final long now)
+		{
+			this.severity = severity;
+			this.since = now;
+			this.lastSeen = now;
+		}
+	}
+
+	private final int restarts;
+	private final long window;
+	private final LongSupplier nanoClock;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Deque<Long> granted = new ArrayDeque<>();
+	private final Map<String, Request> pending = new LinkedHashMap<>();
+
+	/**
+	 * 
+	 * @param restarts:
+	 *            maximum number of restarts over the window
+	 * @param window
+	 */
+	public RestartBudget(final int restarts, final Duration window)
+	{
+		this(restarts, window, System::nanoTime);
+	}
+
+	/**
+	 * 
+	 * @param restarts:
+	 *            maximum number of restarts over the window
+	 * @param window
+	 * @param nanoClock:
+	 *            source of {@link System#nanoTime()}
+	 */
+	public RestartBudget(final int restarts, final Duration window, final LongSupplier nanoClock)
+	{
+		this.restarts = restarts;
+		if (this.restarts < 1)
+			throw new IllegalArgumentException("Restarts cannot be less than 1");
+
+		if (window.isNegative() || window.isZero())
+			throw new IllegalArgumentException("Window must be greater than 0");
+		this.window = window.toNanos();
+
+		this.nanoClock = nanoClock;
+	}
+
+	/**
+	 * Ask for a restart of a miner
+	 * 
+	 * @param minerId
+	 * @param severity
+	 * @return true if the restart is granted. False if it is deferred
+	 */
+	public boolean tryAcquire(final String minerId, final Severity severity)
+	{
+		this.lock.lock();
+		try
+		{
+			final long now = this.nanoClock.getAsLong();
+			expire(now);
+
+			Request request = this.pending.get(minerId);
+			if (request == null || request.severity != severity)
+			{
+				request = new Request(severity, request == null ? now : request.since);
+				this.pending.put(minerId, request);
+			} else
+				request.lastSeen = now;
+
+			// the restarts left are kept for the requests ranked before this one
+			int before = 0;
+			for (final Request other : this.pending.values())
+				if (other != request && (other.severity.compareTo(request.severity) > 0
+						|| (other.severity == request.severity && other.since < request.since)))
+					before++;
+
+			if (before >= this.restarts - this.granted.size())
+				return false;
+
+			this.pending.remove(minerId);
+			this.granted.addLast(now);
+			return true;
+
+		} finally
+		{
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Withdraw the pending restart of a miner, if any. To be called when the policies of the miner no longer trigger a restart, or can no longer be checked
+	 * 
+	 * @param minerId
+	 */
+	public void cancel(final String minerId)
+	{
+		this.lock.lock();
+		try
+		{
+			this.pending.remove(minerId);
+		} finally
+		{
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * 
+	 * @return number of restarts that can be granted right now
+	 */
+	public int getAvailable()
+	{
+		this.lock.lock();
+		try
+		{
+			expire(this.nanoClock.getAsLong());
+			return this.restarts - this.granted.size();
+		} finally
+		{
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * 
+	 * @return number of deferred restarts
+	 */
+	public int getDeferred()
+	{
+		this.lock.lock();
+		try
+		{
+			expire(this.nanoClock.getAsLong());
+			return this.pending.size();
+		} finally
+		{
+			this.lock.unlock();
+		}
+	}
+
+	public int getRestarts()
+	{
+		return restarts;
+	}
+
+	public Duration getWindow()
+	{
+		return Duration.ofNanos(this.window);
+	}
+
+	/**
+	 * Drop the restarts granted before the window and the requests of miners that stopped asking
+	 */
+	private void expire(final long now)
+	{
+		while (!this.granted.isEmpty() && now - this.granted.peekFirst() >= this.window)
+			this.granted.removeFirst();
+
+		this.pending.values().removeIf(request -> now - request.lastSeen >= this.window);
+	}
+}
@@ -0,0 +1,227 @@
+/*******************************************************************************
+ * Copyright (C) 2018 Ortis (cao.ortis.org@gmail.com)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+package org.ortis.mochimo.farm_manager.farm.miner;
+
+import java.time.Duration;
+
+/**
+ * Fixed resolution rollup of a series: samples are aggregated in buckets of fixed width (min, max, average and last value). Buckets are stored in primitive
+ * ring buffers indexed by bucket number, so that recording a sample is O(1) and does not allocate. Once full, the oldest bucket is overwritten
+ * 
+ * @author Ortis <br>
+ *         2018 Oct 02 8:34:52 PM <br>
+ */
+public class RollupSeries
+{
+	/**
+	 * Buckets of a time range, from the oldest to the newest. Empty buckets are skipped
+	 */
+	public static class Buckets
+	{
+		private final long width;
+		private final long [] times;
+		private final float [] min;
+		private final float [] max;
+		private final float [] avg;
+		private final float [] last;
+
+		private Buckets(final long width, final int size)
+		{
+			this.width = width;
+			this.times = new long[size];
+			this.min = new float[size];
+			this.max = new float[size];
+			this.avg = new float[size];
+			this.last = new float[size];
+		}
+
+		/**
+		 * 
+		 * @return width of the buckets in milli seconds
+		 */
+		public long getWidth()
+		{
+			return width;
+		}
+
+		public int size()
+		{
+			return this.times.length;
+		}
+
+		/**
+		 * 
+		 * @param index
+		 * @return start of the bucket in milli seconds since epoch
+		 */
+		public long getTime(final int index)
+		{
+			return this.times[index];
+		}
+
+		public float getMin(final int index)
+		{
+			return this.min[index];
+		}
+
+		public float getMax(final int index)
+		{
+			return this.max[index];
+		}
+
+		public float getAvg(final int index)
+		{
+			return this.avg[index];
+		}
+
+		public float getLast(final int index)
+		{
+			return this.last[index];
+		}
+	}
+
+	private final long width;
+	private final long [] buckets;
+	private final float [] min;
+	private final float [] max;
+	private final double [] sum;
+	private final float [] last;
+	private final int [] count;
+
+	private long newest = Long.MIN_VALUE;
+
+	/**
+	 * 
+	 * @param width:
+	 *            width of the buckets
+	 * @param capacity:
+	 *            number of buckets kept
+	 */
+	public RollupSeries(final Duration width, final int capacity)
+	{
+		this.width = width.toMillis();
+		if (this.width < 1)
+			throw new IllegalArgumentException("Width cannot be less than 1 ms");
+
+		if (capacity < 1)
+			throw new IllegalArgumentException("Capacity cannot be less than 1");
+
+		this.buckets = new long[capacity];
+		this.min = new float[capacity];
+		this.max = new float[capacity];
+		this.sum = new double[capacity];
+		this.last = new float[capacity];
+		this.count = new int[capacity];
+	}
+
+	/**
+	 * Add a sample to its bucket. Samples older than the oldest bucket are dropped
+	 * 
+	 * @param time:
+	 *            milli seconds since epoch
+	 * @param value
+	 */
+	public synchronized void record(final long time, final float value)
+	{
+		if (Float.isNaN(value))
+			return;
+
+		final long bucket = Math.floorDiv(time, this.width);
+		if (this.newest != Long.MIN_VALUE && bucket <= this.newest - this.buckets.length)
+			return;
+
+		final int index = (int) Math.floorMod(bucket, (long) this.buckets.length);
+		if (this.count[index] == 0 || this.buckets[index] != bucket)
+		{// new bucket: replaces the bucket one capacity older
+			this.buckets[index] = bucket;
+			this.min[index] = value;
+			this.max[index] = value;
+			this.sum[index] = value;
+			this.last[index] = value;
+			this.count[index] = 1;
+		} else
+		{
+			this.min[index] = Math.min(this.min[index], value);
+			this.max[index] = Math.max(this.max[index], value);
+			this.sum[index] += value;
+			this.last[index] = value;
+			this.count[index]++;
+		}
+
+		if (bucket > this.newest)
+			this.newest = bucket;
+	}
+
+	/**
+	 * 
+	 * @param from:
+	 *            inclusive, milli seconds since epoch
+	 * @param to:
+	 *            inclusive, milli seconds since epoch
+	 * @return copy of the buckets overlapping from and to
+	 */
+	public synchronized Buckets query(final long from, final long to)
+	{
+		if (this.newest == Long.MIN_VALUE)
+			return new Buckets(this.width, 0);
+
+		final long first = Math.max(Math.floorDiv(from, this.width), this.newest - this.buckets.length + 1);
+		final long last = Math.min(Math.floorDiv(to, this.width), this.newest);
+
+		int size = 0;
+		for (long bucket = first; bucket <= last; bucket++)
+			if (contains(bucket))
+				size++;
+
+		final Buckets buckets = new Buckets(this.width, size);
+		int i = 0;
+		for (long bucket = first; bucket <= last; bucket++)
+			if (contains(bucket))
+			{
+				final int index = (int) Math.floorMod(bucket, (long) this.buckets.length);
+				buckets.times[i] = bucket * this.width;
+				buckets.min[i] = this.min[index];
+				buckets.max[i] = this.max[index];
+				buckets.avg[i] = (float) (this.sum[index] / this.count[index]);
+				buckets.last[i] = this.last[index];
+				i++;
+			}
+
+		return buckets;
+	}
+
+	/**
+	 * 
+	 * @return width of the buckets in milli seconds
+	 */
+	public long getWidth()
+	{
+		return this.width;
+	}
+
+	/**
+	 * 
+	 * @return time covered by the series
+	 */
+	public Duration getRetention()
+	{
+		return Duration.ofMillis(this.width * this.buckets.length);
+	}
+
+	private boolean contains(final long bucket)
+	{
+		final int index = (int) Math.floorMod(bucket, (long) this.buckets.length);
+		return this.count[index] > 0 && this.buckets[index] == bucket;
+	}
+}
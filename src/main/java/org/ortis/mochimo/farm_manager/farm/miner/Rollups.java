@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (C) 2018 Ortis (cao.ortis.org@gmail.com)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+package org.ortis.mochimo.farm_manager.farm.miner;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Rollups of a series at several resolutions. Each sample updates every tier in O(1). Queries over a long window should read the coarsest tier that
+ * meets the requested resolution
+ * 
+ * @author Ortis <br>
+ *         2018 Oct 02 9:12:07 PM <br>
+ */
+public class Rollups
+{
+	/**
+	 * 1 minute for 1 hour, 15 minutes for 1 day, 1 hour for 1 week
+	 */
+	public final static List<Tier> DEFAULT_TIERS = Collections.unmodifiableList(
+			Arrays.asList(new Tier(Duration.ofMinutes(1), 60), new Tier(Duration.ofMinutes(15), 96), new Tier(Duration.ofHours(1), 168)));
+
+	/**
+	 * Width and number of buckets of a {@link RollupSeries}
+	 */
+	public static class Tier
+	{
+		private final Duration width;
+		private final int capacity;
+
+		public Tier(final Duration width, final int capacity)
+		{
+			this.width = width;
+			this.capacity = capacity;
+		}
+
+		public Duration getWidth()
+		{
+			return width;
+		}
+
+		public int getCapacity()
+		{
+			return capacity;
+		}
+	}
+
+	private final RollupSeries [] series;
+
+	/**
+	 * 
+	 * @param tiers:
+	 *            from the finest to the coarsest
+	 */
+	public Rollups(final List<Tier> tiers)
+	{
+		if (tiers.isEmpty())
+			throw new IllegalArgumentException("At least one tier is required");
+
+		this.series = new RollupSeries[tiers.size()];
+		for (int i = 0; i < this.series.length; i++)
+		{
+			this.series[i] = new RollupSeries(tiers.get(i).getWidth(), tiers.get(i).getCapacity());
+			if (i > 0 && this.series[i].getWidth() <= this.series[i - 1].getWidth())
+				throw new IllegalArgumentException("Tiers must be ordered from the finest to the coarsest");
+		}
+	}
+
+	/**
+	 * 
+	 * @param time:
+	 *            milli seconds since epoch
+	 * @param value
+	 */
+	public void record(final long time, final float value)
+	{
+		for (final RollupSeries series : this.series)
+			series.record(time, value);
+	}
+
+	/**
+	 * 
+	 * @param resolution:
+	 *            requested resolution in milli seconds
+	 * @return the coarsest tier whose buckets are not wider than resolution, null if all the tiers are wider
+	 */
+	public RollupSeries select(final long resolution)
+	{
+		RollupSeries selected = null;
+		for (final RollupSeries series : this.series)
+			if (series.getWidth() <= resolution)
+				selected = series;
+
+		return selected;
+	}
+
+	/**
+	 * 
+	 * @param resolution:
+	 *            requested resolution in milli seconds
+	 * @param from:
+	 *            start of the queried range, milli seconds since epoch
+	 * @param now:
+	 *            current time, milli seconds since epoch
+	 * @return the coarsest tier whose buckets are not wider than resolution, or the next coarser tiers until one retains from. The coarsest tier if none does
+	 *         (the range is truncated). Null if all the tiers are wider than resolution
+	 */
+	public RollupSeries select(final long resolution, final long from, final long now)
+	{
+		int selected = -1;
+		for (int i = 0; i < this.series.length; i++)
+			if (this.series[i].getWidth() <= resolution)
+				selected = i;
+
+		if (selected < 0)
+			return null;
+
+		while (selected < this.series.length - 1 && from < now - this.series[selected].getRetention().toMillis())
+			selected++;
+
+		return this.series[selected];
+	}
+
+	/**
+	 * 
+	 * @return the finest tier
+	 */
+	public RollupSeries getFinest()
+	{
+		return this.series[0];
+	}
+}
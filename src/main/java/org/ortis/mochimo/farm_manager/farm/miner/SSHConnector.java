@@ -16,15 +16,21 @@ package org.ortis.mochimo.farm_manager.farm.miner;
 
 import java.io.BufferedReader;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Logger;
 
 import com.jcraft.jsch.Channel;
 import com.jcraft.jsch.ChannelExec;
+import com.jcraft.jsch.Identity;
 import com.jcraft.jsch.JSch;
 import com.jcraft.jsch.JSchException;
 import com.jcraft.jsch.Session;
@@ -37,17 +43,46 @@ import com.jcraft.jsch.Session;
  */
 public class SSHConnector
 {
+	private final static int MAX_SESSIONS = 2;
+	private final static Duration SESSION_MAX_IDLE = Duration.ofMinutes(5);
+	private final static Duration SESSION_HEALTH_CHECK_IDLE = Duration.ofSeconds(30);
+	private final static int SESSION_TIMEOUT = 30000;
+
+	private final static Properties SESSION_CONFIG = new Properties();
+	static
+	{
+		SESSION_CONFIG.put("StrictHostKeyChecking", "no");
+	}
+
+	private final static int BREAKER_FAILURE_THRESHOLD = 3;
+	private final static Duration BREAKER_BASE_OPEN_DURATION = Duration.ofSeconds(15);
+	private final static Duration BREAKER_MAX_OPEN_DURATION = Duration.ofMinutes(10);
+
+	private final static int CONNECT_TIMEOUT_SAMPLES = 32;
+	private final static double CONNECT_TIMEOUT_PERCENTILE = 0.95;
+	private final static double CONNECT_TIMEOUT_FACTOR = 4;
+	private final static Duration CONNECT_TIMEOUT_MIN = Duration.ofSeconds(2);
+	private final static Duration CONNECT_TIMEOUT_MAX = Duration.ofMillis(SESSION_TIMEOUT);
+
 	private final String id;
 	private final String host;
 	private final int port;
 	private final String user;
 	private final String password;
 	private final String privateKey;
+	private final String privateKeyPassphrase;
 	private final Logger log;
 
 	private final JSch jSch;
+	private final SSHSessionPool sessionPool;
+	private final HostLimiter hostLimiter;
+	private final CircuitBreaker circuitBreaker;
+	private final AdaptiveTimeout connectTimeout;
+	private final ReentrantLock identityLock = new ReentrantLock();
+	private Identity identity;
 
-	public SSHConnector(final String id, final String host, final int port, final String user, final String password, final String privateKey, final Logger log) throws JSchException
+	public SSHConnector(final String id, final String host, final int port, final String user, final String password, final String privateKey, final String privateKeyPassphrase,
+			final HostLimiter hostLimiter, final Logger log) throws JSchException, IOException
 	{
 		this.id = id;
 		this.host = host;
@@ -55,71 +90,231 @@ public class SSHConnector
 		this.user = user;
 		this.password = password;
 		this.privateKey = privateKey;
+		this.privateKeyPassphrase = privateKeyPassphrase;
+		this.hostLimiter = hostLimiter;
 		this.log = log;
 
 		this.jSch = new JSch();
+		if (this.privateKey != null)
+			updateIdentity();// parse and decrypt the key at startup
+		this.sessionPool = new SSHSessionPool(this::initSession, MAX_SESSIONS, SESSION_MAX_IDLE, SESSION_HEALTH_CHECK_IDLE, log);
+		this.circuitBreaker = new CircuitBreaker(BREAKER_FAILURE_THRESHOLD, BREAKER_BASE_OPEN_DURATION, BREAKER_MAX_OPEN_DURATION);
+		this.connectTimeout = new AdaptiveTimeout(CONNECT_TIMEOUT_SAMPLES, CONNECT_TIMEOUT_PERCENTILE, CONNECT_TIMEOUT_FACTOR, CONNECT_TIMEOUT_MIN, CONNECT_TIMEOUT_MAX);
 
 	}
 
 	public Session initSession() throws JSchException, Exception
-	{// cannot resuse the same Session. It generates Packet corrupt exception
-		final Session session = this.jSch.getSession(this.user, this.host, this.port);
-		java.util.Properties config = new java.util.Properties();
-		config.put("StrictHostKeyChecking", "no");
-		session.setConfig(config);
-
+	{
 		if (this.privateKey != null)
-			this.jSch.addIdentity(this.privateKey);
+			updateIdentity();
+
+		final Session session = this.jSch.getSession(this.user, this.host, this.port);
+		session.setConfig(SESSION_CONFIG);
 
 		if (this.password != null)
 			session.setPassword(this.password);
 
-		this.log.finer("Connecting to " + this.id);
-		session.setTimeout(30000);
-		session.connect(30000);
+		final int timeout = this.connectTimeout.get();
+		this.log.finer("Connecting to " + this.id + " (timeout " + timeout + " ms)");
+		session.setTimeout(SESSION_TIMEOUT);
+		final long start = System.currentTimeMillis();
+		try
+		{
+			session.connect(timeout);
+		} catch (final JSchException e)
+		{
+			if (System.currentTimeMillis() - start >= timeout)
+				this.connectTimeout.recordTimeout();
+			throw e;
+		}
+		this.connectTimeout.record(System.currentTimeMillis() - start);
+
 		if (session.isConnected())
 			this.log.finer("Connected to " + this.id);
 		else
-			throw new Exception("Connection timeout");
+			throw new JSchException("Connection timeout");
 
 		return session;
 	}
 
-	public synchronized List<String> execute(final String command) throws Exception
+	/**
+	 * Register the cached {@link Identity} of the private key. The {@link JSch} identities are replaced only if the key file has been modified
+	 * 
+	 * @throws JSchException
+	 * @throws IOException
+	 */
+	private void updateIdentity() throws JSchException, IOException
+	{
+		this.identityLock.lock();
+		try
+		{
+			final Identity identity = SSHIdentityCache.get(this.privateKey, this.privateKeyPassphrase);
+			if (identity == this.identity)
+				return;
+
+			this.jSch.removeAllIdentity();
+			this.jSch.addIdentity(identity, null);
+			this.identity = identity;
+		} finally
+		{
+			this.identityLock.unlock();
+		}
+	}
+
+	public List<String> execute(final String command) throws Exception
+	{
+		final List<String> stdout = new ArrayList<>();
+		execute(command, line -> stdout.add(line));
+		return stdout;
+	}
+
+	/**
+	 * Execute a command and push each line of STDOUT to the consumer as soon as it is read from the channel
+	 * 
+	 * @param command:
+	 *            the command to execute
+	 * @param consumer:
+	 *            receive each line of STDOUT. Returning false stops the reading and closes the channel
+	 * @throws Exception
+	 */
+	public void execute(final String command, final LineConsumer consumer) throws Exception
 	{
-		final Session session = initSession();
-		final Channel channel = session.openChannel("exec");
+		execute(command, consumer, true);
+	}
+
+	/**
+	 * Execute a command that can run for a long time (ex: waiting for the miner to start) and return its STDOUT. The command only takes a rate token: it does
+	 * not hold a concurrency permit of the host while it runs
+	 * 
+	 * @param command:
+	 *            the command to execute
+	 * @return the lines of STDOUT
+	 * @throws Exception
+	 */
+	public List<String> executeLongRunning(final String command) throws Exception
+	{
+		final List<String> stdout = new ArrayList<>();
+		execute(command, line -> stdout.add(line), false);
+		return stdout;
+	}
+
+	private void execute(final String command, final LineConsumer consumer, final boolean permit) throws Exception
+	{
+		// check the breaker first: an unreachable host must not take a permit nor a token
+		if (!this.circuitBreaker.tryAcquire())
+			throw new IllegalStateException("Miner " + this.id + " is unreachable. Circuit breaker " + this.circuitBreaker);
+
+		try
+		{
+			if (permit)
+				this.hostLimiter.acquire();
+			else
+				this.hostLimiter.throttle();
+		} catch (final InterruptedException e)
+		{
+			this.circuitBreaker.cancel();
+			throw e;
+		}
+
+		try
+		{
+			boolean reached = false;
+			try
+			{
+				execute0(command, consumer);
+				reached = true;
+			} catch (final JSchException | IOException e)
+			{
+				throw e;
+			} catch (final Exception e)
+			{// the host answered: the command itself failed
+				reached = true;
+				throw e;
+			} finally
+			{
+				if (reached)
+					this.circuitBreaker.onSuccess();
+				else
+				{
+					this.circuitBreaker.onFailure();
+					if (this.circuitBreaker.getState() == CircuitBreaker.State.Open)
+						this.log.warning("Miner " + this.id + " is unreachable. Circuit breaker " + this.circuitBreaker);
+				}
+			}
+		} finally
+		{
+			if (permit)
+				this.hostLimiter.release();
+		}
+	}
 
+	private void execute0(final String command, final LineConsumer consumer) throws Exception
+	{
 		final String fullCommand = "bash --login -c echo '' && " + command;
-		((ChannelExec) channel).setCommand(fullCommand);
-		// ((ChannelExec) channel).setPty(true); //prevent some commamd to run properly
 
+		Session session = null;
+		Channel channel = null;
 		final ByteArrayOutputStream errBaos = new ByteArrayOutputStream();
-		((ChannelExec) channel).setErrStream(errBaos);
+		InputStream in = null;
 
-		channel.setInputStream(null);
-		InputStream in = channel.getInputStream();
+		for (int attempt = 0; channel == null; attempt++)
+		{
+			session = this.sessionPool.acquire();
+			try
+			{
+				channel = session.openChannel("exec");
+				((ChannelExec) channel).setCommand(fullCommand);
+				// ((ChannelExec) channel).setPty(true); //prevent some commamd to run properly
 
-		this.log.finer("Executing command " + fullCommand);
-		channel.connect();
+				((ChannelExec) channel).setErrStream(errBaos);
+
+				channel.setInputStream(null);
+				in = channel.getInputStream();
+
+				this.log.finer("Executing command " + fullCommand);
+				channel.connect();
+			} catch (final JSchException e)
+			{// command has not been sent yet: safe to retry on a fresh session
+				if (channel != null)
+					channel.disconnect();
+				channel = null;
+				this.sessionPool.release(session, true);
+
+				if (attempt > 0)
+					throw e;
+
+				this.log.fine("Pooled session of " + this.id + " is stale, reconnecting - " + e);
+			}
+		}
 
 		final InputStreamReader inputReader = new InputStreamReader(in, StandardCharsets.UTF_8);
 		final BufferedReader bufferedReader = new BufferedReader(inputReader);
 		String line = null;
 
-		final List<String> stdout = new ArrayList<>();
-		bufferedReader.readLine();// skip echo ''
-		while ((line = bufferedReader.readLine()) != null)
-			stdout.add(line);
+		boolean broken = true;
+		boolean terminated = false;
+		try
+		{
+			bufferedReader.readLine();// skip echo ''
+			while ((line = bufferedReader.readLine()) != null)
+				if (!consumer.accept(line))
+				{
+					terminated = true;
+					break;
+				}
 
-		// final int exitCode = channel.getExitStatus();
-		channel.disconnect();
-		session.disconnect();
+			broken = false;
+		} finally
+		{
+			// final int exitCode = channel.getExitStatus();
+			channel.disconnect();
+			this.sessionPool.release(session, broken);
 
-		bufferedReader.close();
-		inputReader.close();
+			bufferedReader.close();
+			inputReader.close();
+		}
 
-		if (errBaos.size() > 0)
+		if (errBaos.size() > 0 && !terminated)// STDERR is incomplete when the reading is stopped early
 		{
 			final String stderr = new String(errBaos.toByteArray());
 
@@ -139,7 +334,74 @@ public class SSHConnector
 			throw new Exception(sb.toString());
 		}
 		*/
+	}
 
-		return stdout;
+	/**
+	 * Execute a long running command on a dedicated {@link Session} and push each line of STDOUT to the consumer as soon as it is received. Return when the command
+	 * ends or when the consumer returns false. Interrupting the calling thread closes the channel.
+	 * 
+	 * @param command:
+	 *            the command to execute
+	 * @param consumer:
+	 *            receive each line of STDOUT. Returning false closes the channel
+	 * @throws Exception
+	 */
+	public void stream(final String command, final LineConsumer consumer) throws Exception
+	{
+		this.hostLimiter.throttle();// do not hold a concurrency permit for an unbounded time
+		final Session session = initSession();// do not hold a pooled session for an unbounded time
+		Channel channel = null;
+		try
+		{
+			channel = session.openChannel("exec");
+			((ChannelExec) channel).setCommand(command);
+			((ChannelExec) channel).setErrStream(new OutputStream()
+			{
+				@Override
+				public void write(final int b)
+				{// discard. tail reports truncation on STDERR
+				}
+			});
+
+			channel.setInputStream(null);
+			final InputStream in = channel.getInputStream();
+
+			this.log.finer("Streaming command " + command);
+			channel.connect();
+
+			final BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+			String line;
+			while ((line = bufferedReader.readLine()) != null)
+				if (!consumer.accept(line))
+					break;
+
+		} finally
+		{
+			if (channel != null)
+				channel.disconnect();
+			session.disconnect();
+		}
+	}
+
+	/**
+	 * 
+	 * @return false if the circuit breaker is open: {@link SSHConnector#execute(String, LineConsumer)} would fail without contacting the host
+	 */
+	public boolean isReachable()
+	{
+		return this.circuitBreaker.isAvailable();
+	}
+
+	public CircuitBreaker getCircuitBreaker()
+	{
+		return this.circuitBreaker;
+	}
+
+	/**
+	 * Disconnect pooled {@link Session}
+	 */
+	public void close()
+	{
+		this.sessionPool.close();
 	}
 }
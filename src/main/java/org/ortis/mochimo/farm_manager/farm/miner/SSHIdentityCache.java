@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Copyright (C) 2018 Ortis (cao.ortis.org@gmail.com)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+
+package org.ortis.mochimo.farm_manager.farm.miner;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.jcraft.jsch.Identity;
+import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.KeyPair;
+
+/**
+ * Process wide cache of parsed private keys. Each key file is read and decrypted once, then shared by all the {@link SSHConnector} using it. A key is parsed
+ * again only if its file is modified.
+ * 
+ * @author Ortis <br>
+ *         2018 Sep 18 7:42:13 PM <br>
+ */
+public class SSHIdentityCache
+{
+	private final static JSch JSCH = new JSch();
+	private final static Map<Path, CachedIdentity> CACHE = new HashMap<>();
+	private final static ReentrantLock LOCK = new ReentrantLock();
+
+	private static class CachedIdentity
+	{
+		private final long lastModified;
+		private final Identity identity;
+
+		public CachedIdentity(final long lastModified, final Identity identity)
+		{
+			this.lastModified = lastModified;
+			this.identity = identity;
+		}
+	}
+
+	/**
+	 * {@link Identity} backed by a decrypted {@link KeyPair}. The key pair is shared: {@link Identity#clear()} does not dispose it
+	 */
+	private static class KeyPairIdentity implements Identity
+	{
+		private final String name;
+		private final KeyPair keyPair;
+		private final String algName;
+
+		public KeyPairIdentity(final String name, final KeyPair keyPair)
+		{
+			this.name = name;
+			this.keyPair = keyPair;
+
+			// the public key blob starts with the algorithm name as an SSH string
+			final byte [] blob = keyPair.getPublicKeyBlob();
+			final int length = ((blob[0] & 0xff) << 24) | ((blob[1] & 0xff) << 16) | ((blob[2] & 0xff) << 8) | (blob[3] & 0xff);
+			this.algName = new String(blob, 4, length, StandardCharsets.UTF_8);
+		}
+
+		@Override
+		public boolean setPassphrase(final byte [] passphrase)
+		{
+			return true;
+		}
+
+		@Override
+		public byte [] getPublicKeyBlob()
+		{
+			return this.keyPair.getPublicKeyBlob();
+		}
+
+		@Override
+		public byte [] getSignature(final byte [] data)
+		{
+			return this.keyPair.getSignature(data);
+		}
+
+		@Deprecated
+		@Override
+		public boolean decrypt()
+		{
+			return true;
+		}
+
+		@Override
+		public String getAlgName()
+		{
+			return this.algName;
+		}
+
+		@Override
+		public String getName()
+		{
+			return this.name;
+		}
+
+		@Override
+		public boolean isEncrypted()
+		{
+			return false;
+		}
+
+		@Override
+		public void clear()
+		{
+		}
+	}
+
+	private SSHIdentityCache()
+	{
+
+	}
+
+	/**
+	 * Return the {@link Identity} of a private key file, parsing it only if it is not cached or if the file has been modified
+	 * 
+	 * @param privateKey:
+	 *            path of the private key file
+	 * @param passphrase:
+	 *            passphrase of the private key. Null if the key is not encrypted
+	 * @return the decrypted {@link Identity}
+	 * @throws IOException
+	 * @throws JSchException
+	 */
+	public static Identity get(final String privateKey, final String passphrase) throws IOException, JSchException
+	{
+		final Path path = Paths.get(privateKey).toAbsolutePath().normalize();
+		final long lastModified = Files.getLastModifiedTime(path).toMillis();
+
+		LOCK.lock();
+		try
+		{
+			final CachedIdentity cached = CACHE.get(path);
+			if (cached != null && cached.lastModified == lastModified)
+				return cached.identity;
+
+			final KeyPair keyPair = KeyPair.load(JSCH, path.toString());
+			if (keyPair.isEncrypted())
+			{
+				if (passphrase == null)
+					throw new IllegalArgumentException("Private key " + path + " is encrypted and no passphrase was provided");
+
+				if (!keyPair.decrypt(passphrase))
+					throw new IllegalArgumentException("Could not decrypt private key " + path + ": wrong passphrase");
+			}
+
+			final Identity identity = new KeyPairIdentity(path.toString(), keyPair);
+			CACHE.put(path, new CachedIdentity(lastModified, identity));
+
+			return identity;
+		} finally
+		{
+			LOCK.unlock();
+		}
+	}
+
+}
@@ -21,11 +21,15 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Supplier;
 import java.util.logging.Logger;
 
+import org.ortis.mochimo.farm_manager.farm.miner.RestartBudget.Severity;
+import org.ortis.mochimo.farm_manager.farm.miner.SSHProbe.Section;
 import org.ortis.mochimo.farm_manager.network.MochimoNetwork;
 import org.ortis.mochimo.farm_manager.network.consensus.NetworkConsensus;
+import org.ortis.mochimo.farm_manager.utils.Threads;
 
 /**
  * An SSH based implementation of {@link Miner}.
@@ -35,245 +39,401 @@ import org.ortis.mochimo.farm_manager.network.consensus.NetworkConsensus;
  */
 public class SSHMiner implements Miner
 {
-	private final static long SWITCH_SLEEP = 3000;
-	private final static int SWITCH_LOOP = 10;
+	/**
+	 * How the miner log is retrieved
+	 */
+	public enum LogMode
+	{
+		/**
+		 * Run the log command on each statistics update
+		 */
+		Command,
+		/**
+		 * Keep a <code>tail -F</code> channel open on the log file and parse new lines as they arrive
+		 */
+		Stream,
+		/**
+		 * Fetch only the bytes written to the log file since the previous statistics update
+		 */
+		Incremental;
+
+		public static LogMode parse(final String mode)
+		{
+			if (mode == null)
+				return Command;
+
+			for (final LogMode lm : values())
+				if (lm.name().equalsIgnoreCase(mode.trim()))
+					return lm;
+
+			throw new IllegalArgumentException("Unknown log mode '" + mode + "'");
+		}
+	}
+
+	private final static Duration SWITCH_TIMEOUT = Duration.ofSeconds(30);
 
 	private final String id;
 	private final String startCommand;
 	private final String stopCommand;
 	private final String logCommand;
+	private final LogMode logMode;
+	private final String logFile;
 	private final SSHConnector connector;
+	private final CpuSampler cpuSampler = new CpuSampler();
+	private final MinerLogParser logParser = new MinerLogParser();
+	private final IncrementalLogReader incrementalLogReader;
+	private Thread logTailerThread;
 	private final List<String> policies;
 	private final Supplier<LocalDateTime> clock;
 	private final Logger log;
 
 	private MinerStatistics statistics;
+	private final ReentrantLock lock = new ReentrantLock();// operations: not synchronized to avoid pinning virtual threads during SSH I/O
 	private final Object statisticsLock = new Object();
+	private final Duration observationMaxAge;
+	private final RestartBudget restartBudget;
+	private final MinerStatisticsListener statisticsListener;
+	private volatile MinerObservation observation;
 
 	private LocalDateTime startTime;
 	private LocalDateTime stopTime;
 	private final Object timeLock = new Object();
 
-	public SSHMiner(final String id, final String startCommand, final String stopCommand, final String logCommand, final List<String> restartPolicies, final SSHConnector connector,
-			final Supplier<LocalDateTime> clock, final Logger log)
+	public SSHMiner(final String id, final String startCommand, final String stopCommand, final String logCommand, final LogMode logMode, final String logFile,
+			final List<String> restartPolicies, final Duration observationMaxAge, final RestartBudget restartBudget, final SSHConnector connector,
+			final MinerStatisticsListener statisticsListener, final Supplier<LocalDateTime> clock, final Logger log)
 	{
 		this.id = id;
 		this.startCommand = startCommand;
 		this.stopCommand = stopCommand;
 		this.logCommand = logCommand;
+		this.logMode = logMode;
+		this.logFile = logFile;
+		if (this.logMode != LogMode.Command && this.logFile == null)
+			throw new IllegalArgumentException("Log file must be set to use log mode " + this.logMode);
+		this.incrementalLogReader = this.logMode == LogMode.Incremental ? new IncrementalLogReader(this.logFile, this.logParser) : null;
 
 		checkPoliciesFormat(restartPolicies);
 		this.policies = Collections.unmodifiableList(new ArrayList<>(restartPolicies));
+		this.observationMaxAge = observationMaxAge;
+		if (this.observationMaxAge.isNegative())
+			throw new IllegalArgumentException("Observation max age cannot be negative");
 
+		this.restartBudget = restartBudget;
 		this.connector = connector;
+		this.statisticsListener = statisticsListener;
 		this.clock = clock;
 		this.log = log;
 
 		clearStatistics();
 	}
 
-	private <D extends Collection<String>> D parseMainPids(final D destination) throws Exception
+	/**
+	 * Collect the pids of mochimo and gomochi processes from the output of {@link SSHProbe#pidsScript()} as it is received
+	 */
+	private static class MainPidCollector implements LineConsumer
 	{
-
-		final List<String> stdout = this.connector.execute("pidof mochimo ; echo 'delimiter' ; ps faux | grep 'gomochi '");
-
-		boolean delimiter = false;
-		for (final String line : stdout)
+		private final Collection<String> destination;
+		private final int limit;
+		private final ProcessLine processLine = new ProcessLine();
+		private Section section = null;
+
+		/**
+		 * 
+		 * @param destination
+		 * @param limit:
+		 *            stop reading once this number of pids is collected
+		 */
+		public MainPidCollector(final Collection<String> destination, final int limit)
 		{
-			if (line.startsWith("delimiter"))
-			{
-				delimiter = true;
-				continue;
-			}
-
-			if (delimiter)
-			{
-				if (line.contains("grep"))
-					continue;
-
-				destination.add(line.split(" +")[1]);
+			this.destination = destination;
+			this.limit = limit;
+		}
 
-			} else
-			{
-				final String [] buffer = line.split(" +");
-				for (final String pid : buffer)
-					destination.add(pid);
-			}
+		@Override
+		public boolean accept(final String line)
+		{
+			if (line.startsWith(SSHProbe.SECTION_DELIMITER))
+				this.section = SSHProbe.parseSection(line);// null for an unknown section: its lines are ignored
+			else if (this.section == Section.Pids)
+				addPidofPids(line, this.destination);
+			else if (this.section == Section.Processes)
+				addGomochiPid(this.processLine, line, this.destination);
+
+			return this.destination.size() < this.limit;
 		}
+	}
 
+	private <D extends Collection<String>> D parseMainPids(final D destination, final int limit) throws Exception
+	{
+		this.connector.execute(SSHProbe.pidsScript(), new MainPidCollector(destination, limit));
 		return destination;
 	}
 
-	private boolean waitSwitch(final boolean start) throws InterruptedException, Exception
+	/**
+	 * Parse the pids of mochimo and gomochi processes
+	 * 
+	 * @param pidof:
+	 *            output of <code>pidof mochimo</code>
+	 * @param processes:
+	 *            output of <code>ps faux | grep mochi</code>
+	 * @param destination
+	 * @return destination
+	 */
+	private static <D extends Collection<String>> D parseMainPids(final List<String> pidof, final List<String> processes, final D destination)
 	{
+		for (final String line : pidof)
+			addPidofPids(line, destination);
 
-		for (int i = 0; i < SWITCH_LOOP; i++)
-		{
-			if (i > 0)
-				this.log.info("Waiting for miner to " + (start ? "start" : "stop"));
+		final ProcessLine processLine = new ProcessLine();
+		for (final String line : processes)
+			addGomochiPid(processLine, line, destination);
 
-			Thread.sleep(SWITCH_SLEEP);
-
-			final boolean running = isRunning();
-
-			if (start && running)
-				return true;
-
-			if (!start && !running)
-				return true;
-
-		}
-
-		return false;
+		return destination;
 	}
 
-	@Override
-	public synchronized boolean start() throws Exception
+	private static void addPidofPids(final String line, final Collection<String> destination)
 	{
-
-		if (isRunning())
-			return true;
-
-		if (this.startCommand == null)
+		int start = LineScanner.skipSpaces(line, 0);
+		while (start < line.length())
 		{
-			this.log.warning("Start command not set");
-			return false;
+			final int end = LineScanner.tokenEnd(line, start);
+			destination.add(line.substring(start, end));
+			start = LineScanner.skipSpaces(line, end);
 		}
+	}
 
-		this.log.info("Starting");
-		this.log.fine("Start command -> " + this.startCommand);
-		final List<String> stdout = this.connector.execute(this.startCommand);
-		final StringBuilder sbout = new StringBuilder("Start command STDOUT -> ");
-		stdout.forEach(l -> sbout.append("\n").append(l));
-		this.log.fine(sbout.toString());
+	private static void addGomochiPid(final ProcessLine processLine, final String line, final Collection<String> destination)
+	{
+		if (processLine.parse(line) && !processLine.isGrep() && processLine.isGomochi())
+			destination.add(Long.toString(processLine.getPid()));
+	}
 
-		// let processes spawn
-		final boolean success = waitSwitch(true);
+	/**
+	 * Wait for the miner processes to appear or disappear. The wait is performed on the remote host so that only one command is executed
+	 * 
+	 * @param start:
+	 *            true to wait for the miner to start, false to wait for the miner to stop
+	 * @return true if the miner reached the expected state before {@link SSHMiner#SWITCH_TIMEOUT}
+	 * @throws Exception
+	 */
+	private boolean waitSwitch(final boolean start) throws Exception
+	{
+		this.log.fine("Waiting for miner to " + (start ? "start" : "stop"));
 
-		if (success)
-			synchronized (this.timeLock)
-			{
-				this.startTime = this.clock.get();
-				this.stopTime = null;
-			}
-		clearStatistics();
-		return success;
+		final List<String> stdout = this.connector.executeLongRunning(SSHProbe.waitScript(start, SWITCH_TIMEOUT));
+		final String state = stdout.isEmpty() ? null : stdout.get(stdout.size() - 1).trim();
+
+		return (start ? SSHProbe.UP : SSHProbe.DOWN).equals(state);
 	}
 
 	@Override
-	public synchronized boolean stop() throws Exception
+	public boolean start() throws Exception
 	{
-		final List<String> pids = parseMainPids(new ArrayList<>());
-
-		if (pids.isEmpty())
-			return true;
-
-		if (this.stopCommand == null)
+		this.lock.lock();
+		try
 		{
-			this.log.info("Stopping with Kill Command (Deal 3 damage. If you have a Beast, deal 5 damage instead.)");
+			if (isRunning())
+				return true;
 
-			// get mochimo pids and kill them all !
-			final StringBuilder sb = new StringBuilder("date");
-			for (final String pid : pids)
-				sb.append(" ; kill ").append(pid); // separate kill: sometime we will get something that is not mochimo and the kill will failed because we dont have the right.
+			if (this.startCommand == null)
+			{
+				this.log.warning("Start command not set");
+				return false;
+			}
 
-			this.log.fine("Stop command -> " + sb);
-			final List<String> stdout = this.connector.execute(sb.toString());
-			final StringBuilder sbout = new StringBuilder("Stop command STDOUT -> ");
+			this.log.info("Starting");
+			this.log.fine("Start command -> " + this.startCommand);
+			final List<String> stdout = this.connector.execute(this.startCommand);
+			final StringBuilder sbout = new StringBuilder("Start command STDOUT -> ");
 			stdout.forEach(l -> sbout.append("\n").append(l));
 			this.log.fine(sbout.toString());
-		} else
+
+			// let processes spawn
+			final boolean success = waitSwitch(true);
+
+			if (success)
+				synchronized (this.timeLock)
+				{
+					this.startTime = this.clock.get();
+					this.stopTime = null;
+				}
+
+			this.logParser.reset();// log is reset by the start command
+			clearStatistics();
+			return success;
+		} finally
 		{
-			this.log.info("Stopping");
-			this.log.fine("Stop command -> " + this.stopCommand);
-			final List<String> stdout = this.connector.execute(this.stopCommand);
-			final StringBuilder sbout = new StringBuilder("Stop command STDOUT -> \n");
-			stdout.forEach(l -> sbout.append("\n").append(l));
-			this.log.fine(sbout.toString());
+			this.lock.unlock();
 		}
+	}
 
-		// let processes vanish
-		final boolean success = waitSwitch(false);
+	@Override
+	public boolean stop() throws Exception
+	{
+		this.lock.lock();
+		try
+		{
+			final List<String> pids = parseMainPids(new ArrayList<>(), Integer.MAX_VALUE);
 
-		if (success)
-			synchronized (this.timeLock)
+			if (pids.isEmpty())
+				return true;
+
+			if (this.stopCommand == null)
 			{
-				this.stopTime = this.clock.get();
-				this.startTime = null;
+				this.log.info("Stopping with Kill Command (Deal 3 damage. If you have a Beast, deal 5 damage instead.)");
+
+				// get mochimo pids and kill them all !
+				final StringBuilder sb = new StringBuilder("date");
+				for (final String pid : pids)
+					sb.append(" ; kill ").append(pid); // separate kill: sometime we will get something that is not mochimo and the kill will failed because we dont have the right.
+
+				this.log.fine("Stop command -> " + sb);
+				final List<String> stdout = this.connector.execute(sb.toString());
+				final StringBuilder sbout = new StringBuilder("Stop command STDOUT -> ");
+				stdout.forEach(l -> sbout.append("\n").append(l));
+				this.log.fine(sbout.toString());
+			} else
+			{
+				this.log.info("Stopping");
+				this.log.fine("Stop command -> " + this.stopCommand);
+				final List<String> stdout = this.connector.execute(this.stopCommand);
+				final StringBuilder sbout = new StringBuilder("Stop command STDOUT -> \n");
+				stdout.forEach(l -> sbout.append("\n").append(l));
+				this.log.fine(sbout.toString());
 			}
 
-		clearStatistics();
+			// let processes vanish
+			final boolean success = waitSwitch(false);
+
+			if (success)
+				synchronized (this.timeLock)
+				{
+					this.stopTime = this.clock.get();
+					this.startTime = null;
+				}
+
+			clearStatistics();
 
-		return success;
+			return success;
+		} finally
+		{
+			this.lock.unlock();
+		}
 	}
 
 	@Override
-	public synchronized boolean restart() throws Exception
+	public boolean restart() throws Exception
 	{
-		// stop if running
-		if (isRunning())
-			if (!stop())
-				return false;// could not be stopped
+		this.lock.lock();
+		try
+		{
+			// stop if running
+			if (isRunning())
+				if (!stop())
+					return false;// could not be stopped
 
-		return start();
+			return start();
+		} finally
+		{
+			this.lock.unlock();
+		}
+	}
+
+	public boolean isRunning() throws Exception
+	{
+		this.lock.lock();
+		try
+		{
+			return !parseMainPids(new ArrayList<>(), 1).isEmpty();// stop reading at the first pid
+		} finally
+		{
+			this.lock.unlock();
+		}
+	}
 
+	public void updateStatistics() throws Exception
+	{
+		this.lock.lock();
+		try
+		{
+			probe();
+		} finally
+		{
+			this.lock.unlock();
+		}
 	}
 
-	public synchronized boolean isRunning() throws Exception
+	/**
+	 * 
+	 * @param maxAge
+	 * @return the last {@link MinerObservation} if it is not older than maxAge, null otherwise. Never probes the miner
+	 */
+	public MinerObservation getObservation(final Duration maxAge)
 	{
-		return !parseMainPids(new ArrayList<>()).isEmpty();
+		final MinerObservation observation = this.observation;
+		if (observation != null && observation.getAge().compareTo(maxAge) <= 0)
+		{
+			this.log.finer("Reusing observation " + observation);
+			return observation;
+		}
+
+		return null;
 	}
 
-	public synchronized void updateStatistics() throws Exception
+	/**
+	 * Probe the miner and publish the resulting {@link MinerStatistics}
+	 * 
+	 * @return the new {@link MinerObservation}
+	 * @throws Exception
+	 */
+	private MinerObservation probe() throws Exception
 	{
 		this.log.fine("Updating statistics");
 
 		final MinerStatistics minerStatistics = new MinerStatistics(this.id, this.clock.get());
-		List<String> stdout = this.connector.execute("top -bcn2");// tic 2 time. First one are not accurate
-
-		for (final String line : stdout)
+		final String probeLogCommand;
+		switch (this.logMode)
 		{
-			if (line.contains("Cpu(s): "))
-			{
-				final String [] buffer = line.substring(8).split(",");
-				float load = 0;
-				for (final String b : buffer)
-				{
-					if (b.contains("id"))
-						continue;
-
-					final String [] bb = b.trim().split("%|( )");
-					load += Float.parseFloat(bb[0]);
-				}
-				minerStatistics.setCpu(load);
-			}
-
+			case Command:
+				probeLogCommand = this.logCommand;
+				break;
+			case Incremental:
+				probeLogCommand = this.incrementalLogReader.command();
+				break;
+			default:
+				probeLogCommand = null;
+				break;
 		}
-
-		stdout = this.connector.execute("ps faux | grep mochi");
-
-		for (String line : stdout)
+		final SSHProbe probe = new SSHProbe();
+		try
 		{
-			String [] buffer = line.split(" +");
+			this.connector.execute(SSHProbe.script(probeLogCommand), probe);
+		} catch (final Exception e)
+		{
+			if (!this.connector.isReachable())
+				markUnreachable();
+			throw e;
+		}
+		minerStatistics.setReachable(true);
 
-			// remove username in case it is 'mochimo' or 'gomochi'
-			final StringBuilder sb = new StringBuilder();
-			for (int i = 1; i < buffer.length; i++)
-				sb.append(buffer[i]).append(" ");
+		// no CPU on the first probe: the statistics stay default and the adaptive polling probes the miner again at its fast interval
+		final Float cpu = this.cpuSampler.sample(probe.get(Section.Cpu), minerStatistics.getProcessCpu());
+		if (cpu != null)
+			minerStatistics.setCpu(cpu);
 
-			line = sb.toString();
+		parseMainPids(probe.get(Section.Pids), probe.get(Section.Processes), minerStatistics.getPids());
 
-			if (line.contains("grep"))
+		final ProcessLine processLine = new ProcessLine();
+		for (final String line : probe.get(Section.Processes))
+		{
+			if (!processLine.parse(line) || processLine.isGrep())
 				continue;
 
-			if (line.contains("gomochi"))
+			if (processLine.isGomochi())
 				minerStatistics.addProcess("gomochi");
-			else
-			{
-				buffer = line.split("mochimo ");
-				if (buffer.length > 1)
-					minerStatistics.addProcess(buffer[1].trim());
-			}
+			else if (processLine.hasRole())
+				minerStatistics.addProcess(processLine.getRole());
 		}
 
 		minerStatistics.getProcesses().sort(null);
@@ -302,32 +462,129 @@ public class SSHMiner implements Miner
 
 		}
 
-		if (!minerStatistics.getProcesses().isEmpty() && this.logCommand != null)
-		{
-			stdout = this.connector.execute(this.logCommand);
-			for (String line : stdout)
+		if (!minerStatistics.getProcesses().isEmpty())
+			switch (this.logMode)
 			{
-				line = line.replaceAll(" +", " ");
-				if (line.contains("Haiku/second:"))
-				{
-					final String [] buffer = line.split(" ");
-					for (int i = 0; i < buffer.length; i += 2)
-						minerStatistics.setStatistics(buffer[i].substring(0, buffer[i].length() - 1), buffer[i + 1]);
+				case Command:
+					if (this.logCommand != null)
+					{
+						final MinerLogParser parser = new MinerLogParser();
+						for (final String line : probe.get(Section.Log))
+							parser.accept(line);
+						parser.apply(minerStatistics);
+					}
+					break;
+
+				case Incremental:
+					this.incrementalLogReader.accept(probe.get(Section.Log));
+					this.logParser.apply(minerStatistics);
+					break;
+
+				case Stream:
+					this.logParser.apply(minerStatistics);
+					break;
+			}
+
+		final MinerObservation observation = new MinerObservation(minerStatistics.getPids(), minerStatistics);
+		synchronized (this.statisticsLock)
+		{
+			publish(minerStatistics);
+			this.observation = observation;
+		}
+
+		return observation;
+	}
+
+	/**
+	 * Parse a new line of the streamed log and update the current {@link MinerStatistics}
+	 * 
+	 * @param line
+	 */
+	private void onLogLine(final String line)
+	{
+		try
+		{
+			if (!this.logParser.accept(line))
+				return;
+		} catch (final Exception e)
+		{
+			this.log.fine("Could not parse log line '" + line + "' - " + e);
+			return;
+		}
+
+		synchronized (this.statisticsLock)
+		{
+			if (this.statistics.isDefault() || !this.statistics.isRunning())
+				return;
+
+			// copy on write: readers may be iterating the current statistics
+			final MinerStatistics updated = this.statistics.copy();
+			this.logParser.apply(updated);
+			publish(updated);
+		}
+	}
 
-				} else if (line.contains(": 0x"))
+	@Override
+	public void open()
+	{
+		this.lock.lock();
+		try
+		{
+			if (this.logMode == LogMode.Stream && this.logTailerThread == null)
+			{
+				this.logTailerThread = Threads.newThread(this.id + "-LogTailer", new LogTailer(this.connector, this.logFile, line ->
 				{
-					final String hex = line.split(": 0x")[1].split(" +")[0];
-					minerStatistics.setStatistics("Block", "0x" + hex);
-					minerStatistics.setStatistics("Height", Integer.toString(Integer.parseInt(hex, 16)));
-				}
+					onLogLine(line);
+					return true;
+				}, this.log));
+				this.logTailerThread.setDaemon(true);
+				this.logTailerThread.start();
+			}
+		} finally
+		{
+			this.lock.unlock();
+		}
+	}
 
+	@Override
+	public void close()
+	{
+		this.lock.lock();
+		try
+		{
+			if (this.logTailerThread != null)
+			{
+				this.logTailerThread.interrupt();
+				this.logTailerThread = null;
 			}
+
+			this.connector.close();
+		} finally
+		{
+			this.lock.unlock();
 		}
+	}
 
+	@Override
+	public boolean isReachable()
+	{
+		return this.connector.isReachable();
+	}
+
+	/**
+	 * Replace the current {@link MinerStatistics} by empty statistics flagged as unreachable
+	 */
+	private void markUnreachable()
+	{
 		synchronized (this.statisticsLock)
 		{
-			this.statistics = minerStatistics;
+			if (Boolean.FALSE.equals(this.statistics.isReachable()))
+				return;
 
+			final MinerStatistics unreachable = MinerStatistics.getEmptyStatistics(this.id, this.clock);
+			unreachable.setReachable(false);
+			publish(unreachable);
+			this.observation = null;
 		}
 	}
 
@@ -336,10 +593,24 @@ public class SSHMiner implements Miner
 	{
 		synchronized (this.statisticsLock)
 		{
-			this.statistics = MinerStatistics.getEmptyStatistics(this.id, this.clock);
+			publish(MinerStatistics.getEmptyStatistics(this.id, this.clock));
+			this.observation = null;
 		}
 	}
 
+	/**
+	 * Replace the current {@link MinerStatistics} and notify the listener. Must be called while holding {@link SSHMiner#statisticsLock}
+	 * 
+	 * @param statistics
+	 */
+	private void publish(final MinerStatistics statistics)
+	{
+		final MinerStatistics previous = this.statistics;
+		this.statistics = statistics;
+		if (this.statisticsListener != null)
+			this.statisticsListener.onStatistics(previous, statistics);
+	}
+
 	public MinerStatistics getStatistics()
 	{
 		synchronized (this.statisticsLock)
@@ -351,9 +622,13 @@ public class SSHMiner implements Miner
 	@Override
 	public void checkPolicies(final NetworkConsensus networkConsensus) throws Exception
 	{
+		// a stale observation falls back to the light pids check: the statistics are left to the statistics scheduler
+		final MinerObservation observation = getObservation(this.observationMaxAge);
+		final boolean running = observation == null ? isRunning() : observation.isRunning();
+
 		final Duration uptime;
 		final Duration downtime;
-		if (isRunning())
+		if (running)
 		{
 			synchronized (this.timeLock)
 			{
@@ -400,10 +675,12 @@ public class SSHMiner implements Miner
 		final MinerStatistics stat = getStatistics();
 		final Double networkHeight = networkConsensus == null ? null : networkConsensus.getHeight();
 
+		// keep the most severe trigger: it sets the priority of the restart in the farm budget
 		String restartTrigger = null;
+		Severity severity = null;
 		for (final String policy : getPolicies())
 		{
-			if (restartTrigger != null)
+			if (severity == Severity.Downtime)
 				break;
 
 			final String upperPolicy = policy.trim().toUpperCase(Locale.ENGLISH);
@@ -418,11 +695,14 @@ public class SSHMiner implements Miner
 				delay = Duration.parse("PT" + buffer[1]);
 
 				if (downtime.compareTo(delay) > 0)
+				{
 					restartTrigger = "Max Downtime " + delay + " (current downtime = " + downtime + ")";
+					severity = Severity.Downtime;
+				}
 
 			} else if (upperPolicy.startsWith("MAXUPTIME"))
 			{
-				if (uptime == null)
+				if (uptime == null || severity != null)
 					continue;
 
 				final String [] buffer = upperPolicy.split(" +");
@@ -431,18 +711,19 @@ public class SSHMiner implements Miner
 				delay = Duration.parse("PT" + buffer[1]);
 
 				if (uptime.compareTo(delay) > 0)
+				{
 					restartTrigger = "Max Uptime " + delay + "(current uptime = " + uptime + ")";
+					severity = Severity.Uptime;
+				}
 
 			} else if (upperPolicy.startsWith("MAXLAG"))
 			{
 
-				if (uptime == null /*miner is running*/ || networkHeight == null || stat == null || stat.isDefault() || stat.isSyncing() || !stat.getStatistics().containsKey("Height")
+				if (uptime == null /*miner is running*/ || networkHeight == null || stat == null || stat.isDefault() || stat.isSyncing() || !stat.hasHeight()
 						|| stat.getAge(this.clock.get()).compareTo(MochimoNetwork.TARGET_BLOCK_TIME) > 0)
 					continue;
 
-				final Integer minerHeight = Integer.parseInt(stat.getStatistics().get("Height"));
-
-				final double lag = networkHeight - minerHeight;
+				final double lag = networkHeight - stat.getHeight();
 
 				final String [] buffer = upperPolicy.split(" +");
 
@@ -450,24 +731,36 @@ public class SSHMiner implements Miner
 				if (delay < 1)
 					throw new IllegalArgumentException("Lag policy cannot be less than 1");
 
-				if (lag >= delay)
+				if (lag >= delay && (severity == null || severity.compareTo(Severity.Lag) < 0))
+				{
 					restartTrigger = "Lag " + delay + " (current lag = " + lag + ")";
+					severity = Severity.Lag;
+				}
 			}
 
 		}
 
-		if (restartTrigger != null)
+		if (restartTrigger == null)
 		{
-			this.log.info("Policy " + restartTrigger + " triggered. Initiating restart.");
-
-			if (restart())
-				this.log.info("Restart sucessfull");
-			else
-				this.log.warning("Restart Failed");
+			this.restartBudget.cancel(this.id);
+			return;
+		}
 
-			clearStatistics();
+		if (!this.restartBudget.tryAcquire(this.id, severity))
+		{
+			this.log.info("Policy " + restartTrigger + " triggered. Restart deferred: farm restart budget exhausted");
+			return;
 		}
 
+		this.log.info("Policy " + restartTrigger + " triggered. Initiating restart.");
+
+		if (restart())
+			this.log.info("Restart sucessfull");
+		else
+			this.log.warning("Restart Failed");
+
+		clearStatistics();
+
 	}
 
 	@Override
@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright (C) 2018 Ortis (cao.ortis.org@gmail.com)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+
+package org.ortis.mochimo.farm_manager.farm.miner;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Composite remote probe of a {@link SSHMiner}: a single script that collects CPU, processes, pids and log of the miner. The output of each command is preceded
+ * by a section delimiter so that everything can be retrieved through a single channel.
+ * 
+ * @author Ortis <br>
+ *         2018 Sep 03 9:41:12 PM <br>
+ */
+public class SSHProbe implements LineConsumer
+{
+	public enum Section
+	{
+		Cpu, Pids, Processes, Log
+	}
+
+	public final static String SECTION_DELIMITER = "#mfm-section:";
+	public final static String UP = "up";
+	public final static String DOWN = "down";
+	private final static long WAIT_POLL_SECONDS = 1;// POSIX sleep only takes whole seconds
+
+	private final Map<Section, List<String>> sections = new EnumMap<>(Section.class);
+	private List<String> current = null;
+
+	/**
+	 * Route a line of the probe output to its section. Lines preceding the first delimiter and lines of unknown sections are ignored
+	 * 
+	 * @param line:
+	 *            a line of the probe output
+	 * @return true
+	 */
+	@Override
+	public boolean accept(final String line)
+	{
+		if (line.startsWith(SECTION_DELIMITER))
+		{
+			final Section section = parseSection(line);
+			this.current = section == null ? null : new ArrayList<>();
+			if (section != null)
+				this.sections.put(section, this.current);
+			return true;
+		}
+
+		if (this.current != null)
+			this.current.add(line);
+
+		return true;
+	}
+
+	/**
+	 * 
+	 * @param section
+	 * @return the lines of the section or an empty {@link List} if the section was not part of the output
+	 */
+	public List<String> get(final Section section)
+	{
+		final List<String> lines = this.sections.get(section);
+		return lines == null ? Collections.emptyList() : lines;
+	}
+
+	public boolean has(final Section section)
+	{
+		return this.sections.containsKey(section);
+	}
+
+	/**
+	 * Build the probe script
+	 * 
+	 * @param logCommand:
+	 *            command that retrieves the miner log. Ignored if null
+	 * @return the script to execute on the miner host
+	 */
+	public static String script(final String logCommand)
+	{
+		final StringBuilder sb = new StringBuilder();
+		sb.append(delimiter(Section.Cpu)).append(" ; head -n1 /proc/stat ; for p in $(pidof mochimo) ; do cat /proc/$p/stat 2> /dev/null ; done");
+		sb.append(" ; ").append(delimiter(Section.Pids)).append(" ; pidof mochimo");
+		sb.append(" ; ").append(delimiter(Section.Processes)).append(" ; ps faux | grep mochi");
+
+		if (logCommand != null)
+		{
+			String command = logCommand.trim();
+			while (command.endsWith(";"))
+				command = command.substring(0, command.length() - 1).trim();
+
+			// only read the log if a miner process is alive
+			sb.append(" ; ").append(delimiter(Section.Log)).append(" ; if pgrep mochi > /dev/null ; then ").append(command).append(" ; fi");
+		}
+
+		return sb.toString();
+	}
+
+	/**
+	 * Build a lightweight script that only collects the pids and processes
+	 * 
+	 * @return the script to execute on the miner host
+	 */
+	public static String pidsScript()
+	{
+		return delimiter(Section.Pids) + " ; pidof mochimo ; " + delimiter(Section.Processes) + " ; ps faux | grep mochi";
+	}
+
+	/**
+	 * Build a script that blocks on the remote host until the miner processes appear or disappear, or the timeout expires. The last line of the output is
+	 * {@link SSHProbe#UP} or {@link SSHProbe#DOWN}
+	 * 
+	 * @param running:
+	 *            true to wait for the miner to start, false to wait for the miner to stop
+	 * @param timeout:
+	 *            maximum waiting time
+	 * @return the script to execute on the miner host
+	 */
+	public static String waitScript(final boolean running, final Duration timeout)
+	{
+		final long loops = Math.max(1, timeout.getSeconds() / WAIT_POLL_SECONDS);
+		// [g]omochi prevents pgrep from matching this script. As in ProcessLine, 'gomochi' must be followed by a space or end the command line
+		return "i=0 ; while [ $i -lt " + loops + " ] ; do if pidof mochimo > /dev/null || pgrep -f '[g]omochi( |$)' > /dev/null ; then R=" + UP + " ; else R=" + DOWN
+				+ " ; fi ; [ \"$R\" = " + (running ? UP : DOWN) + " ] && break ; sleep " + WAIT_POLL_SECONDS + " ; i=$((i + 1)) ; done ; echo $R";
+	}
+
+	/**
+	 * 
+	 * @param line
+	 * @return the {@link Section} starting at this line or null if the line is not a section delimiter or starts an unknown section
+	 */
+	public static Section parseSection(final String line)
+	{
+		if (!line.startsWith(SECTION_DELIMITER))
+			return null;
+
+		final String name = line.substring(SECTION_DELIMITER.length()).trim();
+		for (final Section section : Section.values())
+			if (section.name().equals(name))
+				return section;
+
+		return null;
+	}
+
+	private static String delimiter(final Section section)
+	{
+		return "echo '" + SECTION_DELIMITER + section.name() + "'";
+	}
+}
@@ -0,0 +1,270 @@
+/*******************************************************************************
+ * Copyright (C) 2018 Ortis (cao.ortis.org@gmail.com)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+
+package org.ortis.mochimo.farm_manager.farm.miner;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+import com.jcraft.jsch.Session;
+
+/**
+ * Pool of authenticated {@link Session} to a single host.<br>
+ * A {@link Session} is leased to one caller at a time: only one channel is opened on a {@link Session} at any given time, which prevents the Packet corrupt exception
+ * observed when channels are opened concurrently on the same {@link Session}.
+ * 
+ * @author Ortis <br>
+ *         2018 Sep 02 4:12:37 PM <br>
+ */
+public class SSHSessionPool
+{
+	public interface SessionFactory
+	{
+		Session create() throws Exception;
+	}
+
+	private static class PooledSession
+	{
+		private final Session session;
+		private final long lastUsed;
+
+		public PooledSession(final Session session, final long lastUsed)
+		{
+			this.session = session;
+			this.lastUsed = lastUsed;
+		}
+	}
+
+	private final SessionFactory factory;
+	private final int maxSessions;
+	private final long maxIdle;
+	private final long healthCheckIdle;
+	private final Logger log;
+
+	private final ReentrantLock lock = new ReentrantLock();// not synchronized: waiting for a session must not pin a virtual thread
+	private final Condition available = this.lock.newCondition();
+	private final Deque<PooledSession> idle = new ArrayDeque<>();
+	private int opened = 0;
+	private boolean closed = false;
+
+	/**
+	 * 
+	 * @param factory:
+	 *            create new authenticated {@link Session}
+	 * @param maxSessions:
+	 *            maximum number of {@link Session} opened at the same time (leased and idle)
+	 * @param maxIdle:
+	 *            idle {@link Session} are evicted after this duration
+	 * @param healthCheckIdle:
+	 *            idle {@link Session} are checked with a keep alive message before being leased if they have been idle longer than this duration
+	 * @param log
+	 */
+	public SSHSessionPool(final SessionFactory factory, final int maxSessions, final Duration maxIdle, final Duration healthCheckIdle, final Logger log)
+	{
+		this.factory = factory;
+
+		this.maxSessions = maxSessions;
+		if (this.maxSessions < 1)
+			throw new IllegalArgumentException("Maximum number of sessions cannot be less than 1");
+
+		this.maxIdle = maxIdle.toMillis();
+		if (this.maxIdle <= 0)
+			throw new IllegalArgumentException("Maximum idle duration must be greater than 0");
+
+		this.healthCheckIdle = healthCheckIdle.toMillis();
+		this.log = log;
+	}
+
+	/**
+	 * Lease a connected {@link Session}. The {@link Session} must be given back with {@link SSHSessionPool#release(Session, boolean)}
+	 * 
+	 * @return a connected {@link Session}
+	 * @throws Exception
+	 */
+	public Session acquire() throws Exception
+	{
+		while (true)
+		{
+			final List<PooledSession> evicted = new ArrayList<>();
+			PooledSession candidate = null;
+			boolean create = false;
+
+			this.lock.lock();
+			try
+			{
+				while (candidate == null && !create)
+				{
+					if (this.closed)
+						throw new IllegalStateException("Session pool is closed");
+
+					final long now = System.currentTimeMillis();
+					final Iterator<PooledSession> it = this.idle.iterator();
+					while (it.hasNext())
+					{
+						final PooledSession ps = it.next();
+						if (now - ps.lastUsed > this.maxIdle)
+						{
+							it.remove();
+							this.opened--;
+							evicted.add(ps);
+						}
+					}
+
+					candidate = this.idle.pollFirst();// most recently used first
+					if (candidate == null)
+					{
+						if (this.opened < this.maxSessions)
+						{
+							this.opened++;
+							create = true;
+						} else
+							this.available.await();
+					}
+				}
+			} finally
+			{
+				this.lock.unlock();
+			}
+
+			for (final PooledSession ps : evicted)
+			{
+				this.log.finer("Evicting idle session");
+				ps.session.disconnect();
+			}
+
+			if (create)
+			{
+				try
+				{
+					return this.factory.create();
+				} catch (final Exception e)
+				{
+					discard();
+					throw e;
+				}
+			}
+
+			if (isHealthy(candidate))
+				return candidate.session;
+
+			this.log.fine("Discarding unhealthy session");
+			candidate.session.disconnect();
+			discard();
+		}
+	}
+
+	/**
+	 * Give back a {@link Session} leased with {@link SSHSessionPool#acquire()}
+	 * 
+	 * @param session:
+	 *            the leased {@link Session}
+	 * @param broken:
+	 *            true if the {@link Session} must not be reused
+	 */
+	public void release(final Session session, final boolean broken)
+	{
+		final boolean disconnect;
+		this.lock.lock();
+		try
+		{
+			disconnect = broken || this.closed || !session.isConnected();
+			if (disconnect)
+				this.opened--;
+			else
+				this.idle.addFirst(new PooledSession(session, System.currentTimeMillis()));
+
+			this.available.signalAll();
+		} finally
+		{
+			this.lock.unlock();
+		}
+
+		if (disconnect)
+			session.disconnect();
+	}
+
+	/**
+	 * Disconnect idle {@link Session} and reject future leases. Leased {@link Session} are disconnected on release
+	 */
+	public void close()
+	{
+		final List<PooledSession> sessions;
+		this.lock.lock();
+		try
+		{
+			this.closed = true;
+			sessions = new ArrayList<>(this.idle);
+			this.opened -= this.idle.size();
+			this.idle.clear();
+			this.available.signalAll();
+		} finally
+		{
+			this.lock.unlock();
+		}
+
+		for (final PooledSession ps : sessions)
+			ps.session.disconnect();
+	}
+
+	public int size()
+	{
+		this.lock.lock();
+		try
+		{
+			return this.opened;
+		} finally
+		{
+			this.lock.unlock();
+		}
+	}
+
+	private void discard()
+	{
+		this.lock.lock();
+		try
+		{
+			this.opened--;
+			this.available.signalAll();
+		} finally
+		{
+			this.lock.unlock();
+		}
+	}
+
+	private boolean isHealthy(final PooledSession ps)
+	{
+		if (!ps.session.isConnected())
+			return false;
+
+		if (System.currentTimeMillis() - ps.lastUsed < this.healthCheckIdle)
+			return true;
+
+		try
+		{
+			ps.session.sendKeepAliveMsg();
+			return ps.session.isConnected();
+		} catch (final Exception e)
+		{
+			return false;
+		}
+	}
+
+}
@@ -1,4 +1,3 @@
-
 package org.ortis.mochimo.farm_manager.farm.tasks;
 
 import java.util.concurrent.Callable;
@@ -7,7 +6,19 @@ import org.ortis.mochimo.farm_manager.farm.miner.Miner;
 
 public interface MinerTask extends Callable<Void>
 {
-	boolean acquire(final Object bidder);
-
 	Miner getMiner();
+
+	/**
+	 * 
+	 * @return key identifying the miner and the type of the task
+	 */
+	default String getKey()
+	{
+		return getKey(getMiner(), getClass());
+	}
+
+	static String getKey(final Miner miner, final Class<? extends MinerTask> type)
+	{
+		return miner.getId() + "@" + type.getSimpleName();
+	}
 }
@@ -0,0 +1,201 @@
+/*******************************************************************************
+ * Copyright (C) 2018 Ortis (cao.ortis.org@gmail.com)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+
+package org.ortis.mochimo.farm_manager.farm.tasks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Logger;
+
+import org.ortis.mochimo.farm_manager.farm.miner.Miner;
+import org.ortis.mochimo.farm_manager.farm.tasks.TimingWheel.Timer;
+import org.ortis.mochimo.farm_manager.utils.Threads;
+
+/**
+ * Periodically submit a {@link MinerTask} for each {@link Miner}. Each miner has its own timer on a shared {@link TimingWheel}, re-armed when its task completes:
+ * a slow miner does not delay the others and never has more than one pending task. Due times are randomly spread by a jitter so that the load is smooth over the
+ * heartbeat
+ * 
+ * @author Ortis <br>
+ *         2018 Sep 20 10:12:48 PM <br>
+ */
+public abstract class MinerTaskScheduler
+{
+	private final List<Miner> miners;
+	private final TimingWheel timingWheel;
+	private final long heartbeat;
+	private final double jitter;
+	protected final Logger log;
+
+	private final TaskBoard taskBoard;
+	private final ExecutorService pool;
+	private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+	private volatile boolean stopped = false;
+	private volatile long lag = 0;
+
+	/**
+	 * 
+	 * @param miners:
+	 *            miners to schedule
+	 * @param timingWheel:
+	 *            {@link TimingWheel} firing the timers
+	 * @param heartbeat:
+	 *            time between the end of a task and the submission of the next task of the same miner
+	 * @param jitter:
+	 *            random spread of the due times, as a fraction of the heartbeat (between 0 and 1)
+	 * @param parallelism:
+	 *            number of worker threads. With virtual threads, there is one worker per miner
+	 * @param log
+	 */
+	public MinerTaskScheduler(final List<Miner> miners, final TimingWheel timingWheel, final Duration heartbeat, final double jitter, final int parallelism, final Logger log)
+	{
+		this.miners = miners;
+		this.timingWheel = timingWheel;
+
+		if (heartbeat.isNegative() || heartbeat.isZero())
+			throw new IllegalArgumentException("Heartbeat duration must be positive");
+		this.heartbeat = heartbeat.toNanos();
+
+		this.jitter = jitter;
+		if (this.jitter < 0 || this.jitter > 1)
+			throw new IllegalArgumentException("Jitter must be between 0 and 1");
+
+		this.log = log;
+
+		if (parallelism < 1)
+			throw new IllegalArgumentException("Parallelism cannot be less than 1");
+
+		this.taskBoard = new TaskBoard(task -> arm(task.getMiner(), nextDelay(task.getMiner())), log);
+		// a miner has at most one pending task: one virtual worker per miner never leaves a task waiting
+		final int workers = Threads.isVirtualThreads() ? Math.max(1, miners.size()) : parallelism;
+		this.pool = Threads.newExecutor(getClass().getSimpleName(), workers);
+		for (int i = 0; i < workers; i++)
+		{
+			final TaskWorker su = new TaskWorker(this.taskBoard, log);
+			this.pool.submit(su);
+		}
+	}
+
+	/**
+	 * 
+	 * @param miner
+	 * @return the task to submit for the miner
+	 */
+	protected abstract MinerTask newTask(final Miner miner);
+
+	/**
+	 * Arm the timer of each miner. The first due times are spread over the jitter window
+	 */
+	public void start()
+	{
+		for (final Miner miner : this.miners)
+			arm(miner, (long) (ThreadLocalRandom.current().nextDouble() * this.jitter * this.heartbeat));
+
+		this.log.info("Started");
+	}
+
+	/**
+	 * Cancel the timers and stop the workers
+	 */
+	public void stop()
+	{
+		this.stopped = true;
+		for (final Timer timer : this.timers.values())
+			timer.cancel();
+
+		this.pool.shutdownNow();
+		this.log.info("Stopped");
+	}
+
+	/**
+	 * 
+	 * @param miner
+	 * @return interval before the next task of the miner, in nano seconds. The heartbeat by default
+	 */
+	protected long getInterval(final Miner miner)
+	{
+		return this.heartbeat;
+	}
+
+	/**
+	 * Called when the task of an unreachable miner is skipped. Does nothing by default
+	 * 
+	 * @param miner
+	 */
+	protected void onUnreachable(final Miner miner)
+	{
+	}
+
+	private long nextDelay(final Miner miner)
+	{
+		// interval +/- half the jitter window
+		final long interval = getInterval(miner);
+		return interval + (long) ((ThreadLocalRandom.current().nextDouble() - 0.5) * this.jitter * interval);
+	}
+
+	private void arm(final Miner miner, final long delay)
+	{
+		if (this.stopped)
+			return;
+
+		final long due = System.nanoTime() + delay;
+		this.timers.put(miner.getId(), this.timingWheel.schedule(Duration.ofNanos(delay), () -> onDue(miner, due)));
+	}
+
+	private void onDue(final Miner miner, final long due)
+	{
+		if (this.stopped)
+			return;
+
+		this.lag = System.nanoTime() - due;
+
+		if (!miner.isReachable())
+		{
+			this.log.finest("Miner " + miner + " is unreachable. Skipping");
+			onUnreachable(miner);
+			arm(miner, nextDelay(miner));
+			return;
+		}
+
+		final MinerTask task = newTask(miner);
+		if (this.taskBoard.add(task))
+			this.log.fine("Submitted task " + task);
+		else // the completion of the pending task re-arms the timer: arming here would leave a second timer that can no longer be cancelled
+			this.log.fine("Task " + task + " is already pending. Skipping");
+	}
+
+	/**
+	 * 
+	 * @return number of queued and running tasks
+	 */
+	public int getQueueDepth()
+	{
+		return this.taskBoard.pendingSize();
+	}
+
+	/**
+	 * 
+	 * @return delay between the due time of the last fired timer and its actual firing
+	 */
+	public Duration getLag()
+	{
+		return Duration.ofNanos(Math.max(0, this.lag));
+	}
+
+}
@@ -2,40 +2,45 @@
 package org.ortis.mochimo.farm_manager.farm.tasks;
 
 import org.ortis.mochimo.farm_manager.farm.miner.Miner;
+import org.ortis.mochimo.farm_manager.network.consensus.NetworkConsensus;
 
 public class StatisticsUpdateTask implements MinerTask
 {
 	private final Miner miner;
-
-	private Object owner;
-	private final Object lock = new Object();
+	private final boolean checkPolicies;
+	private final NetworkConsensus networkConsensus;
 
 	public StatisticsUpdateTask(final Miner miner)
 	{
-		this.miner = miner;
-
+		this(miner, false, null);
 	}
 
-	@Override
-	public boolean acquire(final Object bidder)
+	/**
+	 * 
+	 * @param miner
+	 * @param checkPolicies:
+	 *            true to check the policies of the miner right after the update, on the same observation
+	 * @param networkConsensus:
+	 *            consensus given to the policy check
+	 */
+	public StatisticsUpdateTask(final Miner miner, final boolean checkPolicies, final NetworkConsensus networkConsensus)
 	{
-		synchronized (this.lock)
-		{
-
-			if (this.owner == null)
-			{
-				this.owner = bidder;
-				return true;
-			} else
-				return false;
-
-		}
+		this.miner = miner;
+		this.checkPolicies = checkPolicies;
+		this.networkConsensus = networkConsensus;
 	}
 
 	@Override
 	public Void call() throws Exception
 	{
-		this.miner.updateStatistics();
+		try
+		{
+			this.miner.updateStatistics();
+		} finally
+		{// a failed update leaves a stale observation: the policy check falls back to a light process check
+			if (this.checkPolicies)
+				this.miner.checkPolicies(this.networkConsensus);
+		}
 
 		return null;
 	}
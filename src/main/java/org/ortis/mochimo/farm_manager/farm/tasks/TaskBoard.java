@@ -1,107 +1,113 @@
-
 package org.ortis.mochimo.farm_manager.farm.tasks;
 
-import java.time.Duration;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
 
 import org.ortis.mochimo.farm_manager.farm.miner.Miner;
 import org.ortis.mochimo.farm_manager.utils.Utils;
 
 /**
- * Keep track of pending {@link MinerTask}
+ * Keep track of pending {@link MinerTask}. A task is pending from its submission to the end of its execution, and a {@link Miner} can have only one pending task
+ * of each type
  * 
  * @author Ortis <br>
  *         2018 Jul 04 7:34:27 PM <br>
  */
 public class TaskBoard
 {
-	private final Duration sleepTime;
+	private final Consumer<MinerTask> completionListener;
 	private final Logger log;
 
-	private final List<MinerTask> tasks = new LinkedList<>();
+	private final BlockingQueue<MinerTask> queue = new LinkedBlockingQueue<>();
+	private final Set<String> pending = ConcurrentHashMap.newKeySet();
 
-	public TaskBoard(final Duration sleepTime, final Logger log)
+	public TaskBoard(final Logger log)
 	{
-		this.sleepTime = sleepTime;
-		if (this.sleepTime.isNegative() || this.sleepTime.isZero())
-			throw new IllegalArgumentException("Sleep time must be greater than 0");
+		this(null, log);
+	}
 
+	/**
+	 * 
+	 * @param completionListener:
+	 *            called after the execution of each task, once the task is no longer pending
+	 * @param log
+	 */
+	public TaskBoard(final Consumer<MinerTask> completionListener, final Logger log)
+	{
+		this.completionListener = completionListener;
 		this.log = log;
 	}
 
-	public boolean contains(final Miner miner)
+	/**
+	 * 
+	 * @param miner
+	 * @param type
+	 * @return true if a task of the given type is pending for the miner
+	 */
+	public boolean contains(final Miner miner, final Class<? extends MinerTask> type)
 	{
-		synchronized (this.tasks)
-		{
-			for (final MinerTask stu : this.tasks)
-				if (miner.equals(stu.getMiner()))
-					return true;
-		}
-		return false;
+		return this.pending.contains(MinerTask.getKey(miner, type));
 	}
 
-	public void add(final MinerTask task)
+	/**
+	 * Submit a task
+	 * 
+	 * @param task
+	 * @return false if a task of the same type is already pending for the same miner
+	 */
+	public boolean add(final MinerTask task)
 	{
-		synchronized (this.tasks)
-		{
-			this.tasks.add(task);
-		}
+		if (!this.pending.add(task.getKey()))
+			return false;
 
+		this.queue.add(task);
+		return true;
 	}
 
-	public void execute() throws InterruptedException, Exception
+	/**
+	 * Wait for a task and execute it
+	 * 
+	 * @throws InterruptedException
+	 */
+	public void execute() throws InterruptedException
 	{
-		MinerTask task = null;
-		synchronized (this.tasks)
+		final MinerTask task = this.queue.take();
+
+		this.log.finer("Executing task " + task);
+		try
+		{
+			task.call();
+		} catch (final Exception e)
 		{
+			this.log.severe("Error while executing task " + task + " - " + Utils.formatException(e));
 
-			for (final MinerTask sut : this.tasks)
-				if (sut.acquire(Thread.currentThread()))
-				{
-					task = sut;
-					break;
-				}
+		} finally
+		{
+			this.pending.remove(task.getKey());
 		}
 
-		if (task == null)
-		{
-			this.log.finer("No task, sleeping " + this.sleepTime);
-			Thread.sleep(this.sleepTime.toMillis());
-		} else
-		{
-			this.log.finer("Executing statistics update task " + task);
+		if (this.completionListener != null)
 			try
 			{
-				task.call();
-			} catch (Exception e)
-			{
-				this.log.severe("Error while executing statistics update task " + task + " - " + Utils.formatException(e));
-
+				this.completionListener.accept(task);
+			} catch (final Exception e)
+			{// do not lose the worker
+				this.log.severe("Error while completing task " + task + " - " + Utils.formatException(e));
 			}
 
-			if (!remove(task))
-				throw new Exception("Could not remove task " + task);
-
-		}
-
-	}
-
-	private boolean remove(final MinerTask task)
-	{
-		synchronized (this.tasks)
-		{
-			return this.tasks.remove(task);
-		}
 	}
 
+	/**
+	 * 
+	 * @return number of queued and running tasks
+	 */
 	public int pendingSize()
 	{
-		synchronized (this.tasks)
-		{
-			return this.tasks.size();
-		}
+		return this.pending.size();
 	}
 
 }
@@ -0,0 +1,233 @@
+/*******************************************************************************
+ * Copyright (C) 2018 Ortis (cao.ortis.org@gmail.com)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+
+package org.ortis.mochimo.farm_manager.farm.tasks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.ortis.mochimo.farm_manager.utils.Utils;
+
+/**
+ * Hierarchical timing wheel. Each level is a ring of buckets: level 0 buckets last one tick, level n buckets last the full range of level n-1. Timers are
+ * inserted in the bucket of their deadline in O(1) and cascade to the lower level when the wheel reaches their bucket. The expired timers run on the thread of
+ * the wheel: they must be short (ex: submitting a task to a {@link TaskBoard})
+ * 
+ * @author Ortis <br>
+ *         2018 Sep 20 9:05:37 PM <br>
+ */
+public class TimingWheel implements Runnable
+{
+	private final long tickNanos;
+	private final int bits;
+	private final int mask;
+	private final int levels;
+	private final long range;
+	private final Logger log;
+
+	private final List<List<Timer>> buckets;
+	private final long startNanos;
+	private long currentTick = 0;
+	private int size = 0;
+
+	public final class Timer
+	{
+		private final Runnable task;
+		private final long deadline;
+		private boolean cancelled = false;
+
+		private Timer(final Runnable task, final long deadline)
+		{
+			this.task = task;
+			this.deadline = deadline;
+		}
+
+		/**
+		 * Cancel the timer
+		 * 
+		 * @return false if the timer has already expired or was already cancelled
+		 */
+		public boolean cancel()
+		{
+			synchronized (TimingWheel.this)
+			{
+				if (this.cancelled)
+					return false;
+
+				this.cancelled = true;
+				if (this.deadline <= TimingWheel.this.currentTick)
+					return false;
+
+				TimingWheel.this.size--;
+				return true;
+			}
+		}
+
+		void run()
+		{
+			this.task.run();
+		}
+	}
+
+	/**
+	 * 
+	 * @param tick:
+	 *            duration of a tick
+	 * @param bits:
+	 *            each level has 2^bits buckets
+	 * @param levels:
+	 *            number of levels
+	 * @param log
+	 */
+	public TimingWheel(final Duration tick, final int bits, final int levels, final Logger log)
+	{
+		this.tickNanos = tick.toNanos();
+		if (this.tickNanos <= 0)
+			throw new IllegalArgumentException("Tick duration must be positive");
+
+		this.bits = bits;
+		if (bits < 1 || bits * levels > 62)
+			throw new IllegalArgumentException("Invalid wheel size 2^" + bits + " x " + levels + " levels");
+
+		this.levels = levels;
+		this.mask = (1 << bits) - 1;
+		this.range = 1L << (bits * levels);
+		this.log = log;
+
+		this.buckets = new ArrayList<>(levels << bits);
+		for (int i = 0; i < levels << bits; i++)
+			this.buckets.add(new ArrayList<>());
+
+		this.startNanos = System.nanoTime();
+	}
+
+	/**
+	 * Schedule a task
+	 * 
+	 * @param delay:
+	 *            delay before execution. Rounded up to the next tick
+	 * @param task
+	 * @return the {@link Timer}
+	 */
+	public synchronized Timer schedule(final Duration delay, final Runnable task)
+	{
+		final long ticks = Math.max(1, (delay.toNanos() + this.tickNanos - 1) / this.tickNanos);
+		final Timer timer = new Timer(task, this.currentTick + ticks);
+		add(timer);
+		this.size++;
+		return timer;
+	}
+
+	private void add(final Timer timer)
+	{
+		// timers beyond the range of the wheel wait in the last bucket of the top level and are placed again when it cascades
+		final long deadline = Math.min(timer.deadline, this.currentTick + this.range - 1);
+		final long delta = deadline - this.currentTick;
+
+		int level = 0;
+		while (level < this.levels - 1 && delta >= 1L << (this.bits * (level + 1)))
+			level++;
+
+		final int index = (int) ((deadline >>> (this.bits * level)) & this.mask);
+		this.buckets.get((level << this.bits) + index).add(timer);
+	}
+
+	/**
+	 * Advance the wheel of one tick
+	 * 
+	 * @return the expired timers
+	 */
+	synchronized List<Timer> advance()
+	{
+		this.currentTick++;
+
+		// cascade higher levels when the lower level wraps
+		for (int level = 1; level < this.levels; level++)
+		{
+			if ((this.currentTick & ((1L << (this.bits * level)) - 1)) != 0)
+				break;
+
+			final int index = (int) ((this.currentTick >>> (this.bits * level)) & this.mask);
+			final List<Timer> bucket = this.buckets.set((level << this.bits) + index, new ArrayList<>());
+			for (final Timer timer : bucket)
+				if (!timer.cancelled)
+					add(timer);
+		}
+
+		final int index = (int) (this.currentTick & this.mask);
+		final List<Timer> bucket = this.buckets.get(index);
+		if (bucket.isEmpty())
+			return bucket;
+
+		this.buckets.set(index, new ArrayList<>());
+		final List<Timer> expired = new ArrayList<>(bucket.size());
+		for (final Timer timer : bucket)
+			if (!timer.cancelled)
+			{
+				expired.add(timer);
+				this.size--;
+			}
+
+		return expired;
+	}
+
+	/**
+	 * 
+	 * @return number of pending timers
+	 */
+	public synchronized int size()
+	{
+		return this.size;
+	}
+
+	@Override
+	public void run()
+	{
+		this.log.info("Started");
+		try
+		{
+			while (!Thread.interrupted())
+			{
+				final long wait;
+				synchronized (this)
+				{
+					wait = this.startNanos + (this.currentTick + 1) * this.tickNanos - System.nanoTime();
+				}
+
+				if (wait > 0)
+					TimeUnit.NANOSECONDS.sleep(wait);
+
+				for (final Timer timer : advance())
+					try
+					{
+						timer.run();
+					} catch (final Exception e)
+					{
+						this.log.severe("Error while executing timer - " + Utils.formatException(e));
+					}
+			}
+		} catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+
+		} finally
+		{
+			this.log.info("Stopped");
+		}
+	}
+
+}
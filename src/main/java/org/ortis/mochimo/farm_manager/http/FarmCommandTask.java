@@ -1,71 +1,412 @@
-
 package org.ortis.mochimo.farm_manager.http;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 
 import org.ortis.mochimo.farm_manager.farm.MiningFarm;
 import org.ortis.mochimo.farm_manager.farm.miner.Miner;
+import org.ortis.mochimo.farm_manager.farm.miner.MinerStatistics;
+import org.ortis.mochimo.farm_manager.utils.Threads;
 import org.ortis.mochimo.farm_manager.utils.Utils;
 
+/**
+ * Execute a {@link Command} on every {@link Miner} of the farm, with a bounded number of miners processed in parallel. Progress is tracked per miner
+ * <p>
+ * {@link Command#RollingRestart} restarts the farm in waves. A wave is sized so that at most <code>maxUnavailable</code> miners of the farm are not
+ * solving at the same time, counting the miners already down before the rollout. The next wave starts once every miner of the current wave reports
+ * solving, so the rest of the farm keeps mining. The task is aborted when the number of failed miners reaches the failure threshold, or when no miner can
+ * be restarted within the recovery timeout
+ */
 public class FarmCommandTask implements Runnable
 {
 
 	public enum Command
 	{
-		Start, Stop, Restart
+		Start, Stop, Restart, RollingRestart
+	}
+
+	public enum State
+	{
+		Queued, Running, Recovering, Ok, Failed, Skipped
 	}
 
+	public static class MinerProgress
+	{
+		private volatile State state = State.Queued;
+		private volatile String error;
+
+		public State getState()
+		{
+			return state;
+		}
+
+		public String getError()
+		{
+			return error;
+		}
+	}
+
+	private final static AtomicLong SEQUENCE = new AtomicLong();
+	private final static Duration RECOVERY_POLL = Duration.ofSeconds(5);
+	// a bare '%' is an invalid escape in a query string
+	private final static String PERCENT_SUFFIX = "pct";
+
+	private final long id;
 	private final Command command;
-	private final MiningFarm farm;
+	private final List<Miner> miners;
+	private final int parallelism;
+	private final int maxUnavailable;
+	private final int maxFailures;
+	private final Duration recoveryTimeout;
+	private final long recoveryPollMillis;
 	private final Logger log;
 
+	private final Map<String, MinerProgress> progress;
+	private volatile boolean aborted = false;
+	private volatile boolean completed = false;
+
 	private Thread thread;
 
-	public FarmCommandTask(final MiningFarm farm, final Command command, final Logger log)
+	/**
+	 * 
+	 * @param farm
+	 * @param command
+	 * @param parallelism:
+	 *            maximum number of miners processed at the same time
+	 * @param log
+	 */
+	public FarmCommandTask(final MiningFarm farm, final Command command, final int parallelism, final Logger log)
 	{
-		this.farm = farm;
+		this(farm, command, parallelism, Integer.MAX_VALUE, Integer.MAX_VALUE, null, log);
+	}
+
+	/**
+	 * 
+	 * @param farm
+	 * @param command
+	 * @param parallelism:
+	 *            maximum number of miners processed at the same time
+	 * @param maxUnavailable:
+	 *            maximum number of miners not solving at the same time during a {@link Command#RollingRestart}. Also caps the parallelism
+	 * @param maxFailures:
+	 *            number of failed miners that aborts a {@link Command#RollingRestart}
+	 * @param recoveryTimeout:
+	 *            maximum time given to a restarted miner to report solving during a {@link Command#RollingRestart}
+	 * @param log
+	 */
+	public FarmCommandTask(final MiningFarm farm, final Command command, final int parallelism, final int maxUnavailable, final int maxFailures,
+			final Duration recoveryTimeout, final Logger log)
+	{
+		this(farm.getMiners(), command, parallelism, maxUnavailable, maxFailures, recoveryTimeout, RECOVERY_POLL, log);
+	}
+
+	/**
+	 * 
+	 * @param miners
+	 * @param command
+	 * @param parallelism
+	 * @param maxUnavailable
+	 * @param maxFailures
+	 * @param recoveryTimeout
+	 * @param recoveryPoll:
+	 *            delay between two checks of the recovering miners and of the max unavailable budget
+	 * @param log
+	 */
+	FarmCommandTask(final List<Miner> miners, final Command command, final int parallelism, final int maxUnavailable, final int maxFailures,
+			final Duration recoveryTimeout, final Duration recoveryPoll, final Logger log)
+	{
+		this.id = SEQUENCE.incrementAndGet();
+		this.miners = Collections.unmodifiableList(new ArrayList<>(miners));
 		this.command = command;
+
+		if (parallelism < 1)
+			throw new IllegalArgumentException("Parallelism cannot be less than 1");
+
+		this.maxUnavailable = maxUnavailable;
+		if (this.maxUnavailable < 1)
+			throw new IllegalArgumentException("Max unavailable cannot be less than 1");
+
+		// a rolling restart never works on more than maxUnavailable miners at the same time
+		this.parallelism = this.command == Command.RollingRestart ? Math.min(parallelism, this.maxUnavailable) : parallelism;
+
+		this.maxFailures = maxFailures;
+		if (this.maxFailures < 1)
+			throw new IllegalArgumentException("Max failures cannot be less than 1");
+
+		this.recoveryTimeout = recoveryTimeout;
+		if (this.command == Command.RollingRestart && (this.recoveryTimeout == null || this.recoveryTimeout.isNegative() || this.recoveryTimeout.isZero()))
+			throw new IllegalArgumentException("Recovery timeout must be greater than 0");
+
+		this.recoveryPollMillis = recoveryPoll.toMillis();
+
 		this.log = log;
+
+		final Map<String, MinerProgress> progress = new LinkedHashMap<>();
+		for (final Miner miner : this.miners)
+			progress.put(miner.getId(), new MinerProgress());
+		this.progress = Collections.unmodifiableMap(progress);
 	}
 
 	@Override
 	public void run()
 	{
-		for (final Miner miner : this.farm.getMiners())
+		final ExecutorService executor = Threads.newExecutor(this.getClass().getSimpleName(), this.parallelism);
+		try
 		{
-			try
+			if (this.command == Command.RollingRestart)
+				rollingRestart(executor);
+			else
 			{
-				switch (this.command)
+				final List<Callable<Void>> tasks = new ArrayList<>();
+				for (final Miner miner : this.miners)
+					tasks.add(() ->
+					{
+						execute(miner, this.command);
+						return null;
+					});
+				invokeAll(executor, tasks);
+			}
+
+			this.log.info("Command " + this.command + (this.aborted ? " aborted - " : " completed - ") + count(State.Ok) + " ok, " + count(State.Failed)
+					+ " failed, " + count(State.Skipped) + " skipped");
+		} catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		} catch (final ExecutionException e)
+		{
+			this.log.severe(Utils.formatException(e));
+		} finally
+		{
+			executor.shutdownNow();
+			this.completed = true;
+		}
+	}
+
+	private void rollingRestart(final ExecutorService executor) throws InterruptedException, ExecutionException
+	{
+		final List<Miner> miners = this.miners;
+		int i = 0;
+		long waitDeadline = 0;
+		while (i < miners.size())
+		{
+			final int failures = count(State.Failed);
+			if (failures >= this.maxFailures)
+			{
+				abort(miners.subList(i, miners.size()), failures + " miners failed");
+				return;
+			}
+
+			// the budget left once the miners already down, failed or recovering are counted
+			final int unavailable = countUnavailable(miners);
+			final int size = this.maxUnavailable - unavailable;
+			if (size <= 0)
+			{
+				if (waitDeadline == 0)
+				{
+					this.log.info(this.command + " - " + unavailable + " miners are not solving. Waiting for the max unavailable budget of " + this.maxUnavailable);
+					waitDeadline = System.nanoTime() + this.recoveryTimeout.toNanos();
+				} else if (System.nanoTime() - waitDeadline >= 0)
 				{
-					case Start:
+					abort(miners.subList(i, miners.size()), unavailable + " miners still not solving after " + this.recoveryTimeout);
+					return;
+				}
+
+				TimeUnit.MILLISECONDS.sleep(this.recoveryPollMillis);
+				continue;
+			}
+			waitDeadline = 0;
+
+			final List<Miner> wave = miners.subList(i, Math.min(i + size, miners.size()));
+			i += wave.size();
+			this.log.info(this.command + " - restarting " + wave);
+
+			final List<Callable<Void>> tasks = new ArrayList<>();
+			for (final Miner miner : wave)
+				tasks.add(() ->
+				{
+					execute(miner, Command.Restart, State.Recovering);
+					return null;
+				});
+			invokeAll(executor, tasks);
+
+			awaitSolving(executor, wave);
+		}
+	}
+
+	/**
+	 * 
+	 * @return number of miners that are recovering or do not report solving
+	 */
+	private int countUnavailable(final List<Miner> miners)
+	{
+		int count = 0;
+		for (final Miner miner : miners)
+		{
+			if (this.progress.get(miner.getId()).state == State.Recovering)
+			{
+				count++;
+				continue;
+			}
 
-						this.log.fine("Executing "+this.command+" on " + miner);
-						miner.start();
-						break;
+			final MinerStatistics statistics = miner.getStatistics();
+			if (statistics == null || !Boolean.TRUE.equals(statistics.isSolving()))
+				count++;
+		}
+		return count;
+	}
 
-					case Stop:
+	private void abort(final List<Miner> remaining, final String reason)
+	{
+		this.log.warning("Aborting " + this.command + " - " + reason);
+		this.aborted = true;
+		for (final Miner miner : remaining)
+			this.progress.get(miner.getId()).state = State.Skipped;
+	}
 
-						this.log.fine("Executing "+this.command+" on " + miner);
-						miner.stop();
-						break;
+	/**
+	 * Wait until every recovering miner of the wave reports solving. Miners still recovering after the timeout are failed
+	 */
+	private void awaitSolving(final ExecutorService executor, final List<Miner> wave) throws InterruptedException, ExecutionException
+	{
+		final long deadline = System.nanoTime() + this.recoveryTimeout.toNanos();
+		while (true)
+		{
+			final List<Callable<Void>> tasks = new ArrayList<>();
+			for (final Miner miner : wave)
+			{
+				final MinerProgress progress = this.progress.get(miner.getId());
+				if (progress.state == State.Recovering)
+					tasks.add(() ->
+					{
+						try
+						{
+							miner.updateStatistics();
+							final MinerStatistics statistics = miner.getStatistics();
+							if (statistics != null && Boolean.TRUE.equals(statistics.isSolving()))
+								progress.state = State.Ok;
+						} catch (final Exception e)
+						{
+							this.log.fine("Error while updating statistics of " + miner + " - " + Utils.formatException(e));
+						}
+						return null;
+					});
+			}
 
-					case Restart:
+			if (tasks.isEmpty())
+				return;
 
-						this.log.fine("Executing "+this.command+" on " + miner);
-						miner.restart();
-						break;
+			invokeAll(executor, tasks);
 
-					default:
-						throw new Exception("Unhandled command " + this.command);
+			if (System.nanoTime() - deadline >= 0)
+				break;
 
+			TimeUnit.MILLISECONDS.sleep(Math.min(this.recoveryPollMillis, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()) + 1));
+		}
+
+		for (final Miner miner : wave)
+		{
+			final MinerProgress progress = this.progress.get(miner.getId());
+			if (progress.state == State.Recovering)
+			{
+				this.log.warning("Miner " + miner + " is not solving after " + this.recoveryTimeout);
+				progress.error = "Not solving after " + this.recoveryTimeout;
+				progress.state = State.Failed;
+			}
+		}
+	}
+
+	/**
+	 * Run the tasks on the executor and wait for them to complete. At most {@link #parallelism} tasks run at the same time, including in virtual
+	 * threads mode
+	 */
+	private void invokeAll(final ExecutorService executor, final List<Callable<Void>> tasks) throws InterruptedException, ExecutionException
+	{
+		final Semaphore semaphore = new Semaphore(this.parallelism);
+		final List<Future<?>> futures = new ArrayList<>();
+		for (final Callable<Void> task : tasks)
+			futures.add(executor.submit(() ->
+			{
+				semaphore.acquire();
+				try
+				{
+					return task.call();
+				} finally
+				{
+					semaphore.release();
 				}
-			} catch (final Exception e)
+			}));
+
+		for (final Future<?> future : futures)
+			future.get();
+	}
+
+	private boolean execute(final Miner miner, final Command command)
+	{
+		return execute(miner, command, State.Ok);
+	}
+
+	/**
+	 * 
+	 * @param successState:
+	 *            state of the miner if the command succeeded. The miner never goes through {@link State#Ok} before reaching it
+	 * @return true if the command succeeded
+	 */
+	private boolean execute(final Miner miner, final Command command, final State successState)
+	{
+		final MinerProgress progress = this.progress.get(miner.getId());
+		progress.state = State.Running;
+		try
+		{
+			final boolean success;
+			switch (command)
 			{
-				this.log.severe("Error while processing miner " + miner + " - " + Utils.formatException(e));
+				case Start:
+
+					this.log.fine("Executing " + command + " on " + miner);
+					success = miner.start();
+					break;
+
+				case Stop:
+
+					this.log.fine("Executing " + command + " on " + miner);
+					success = miner.stop();
+					break;
+
+				case Restart:
+
+					this.log.fine("Executing " + command + " on " + miner);
+					success = miner.restart();
+					break;
+
+				default:
+					throw new Exception("Unhandled command " + command);
+
 			}
 
+			if (!success)
+				progress.error = command + " failed";
+			progress.state = success ? successState : State.Failed;
+			return success;
+
+		} catch (final Exception e)
+		{
+			this.log.severe("Error while processing miner " + miner + " - " + Utils.formatException(e));
+			progress.error = e.toString();
+			progress.state = State.Failed;
+			return false;
 		}
-		this.log.info("Command " + this.command + " completed");
 	}
 
 	public void start()
@@ -73,14 +414,79 @@ public class FarmCommandTask implements Runnable
 		if (this.thread != null)
 			throw new IllegalStateException("Thread already exists");
 
-		this.thread = new Thread(this);
-		thread.setName(this.getClass().getSimpleName());
-		thread.start();
+		this.thread = Threads.newThread(this.getClass().getSimpleName() + "-" + this.id, this);
+		this.thread.start();
+	}
+
+	/**
+	 * 
+	 * @param state
+	 * @return number of miners in the given state
+	 */
+	public int count(final State state)
+	{
+		int count = 0;
+		for (final MinerProgress progress : this.progress.values())
+			if (progress.state == state)
+				count++;
+		return count;
+	}
+
+	public long getId()
+	{
+		return id;
 	}
 
-	
 	public Command getCommand()
 	{
 		return command;
 	}
+
+	/**
+	 * 
+	 * @return progress by miner id
+	 */
+	public Map<String, MinerProgress> getProgress()
+	{
+		return progress;
+	}
+
+	/**
+	 * Resolve a max unavailable budget, either a number of miners (<code>2</code>) or a percentage of the farm (<code>25pct</code>, or <code>25%</code>
+	 * which must be sent as <code>25%25</code> in a query string)
+	 * 
+	 * @param value
+	 * @param minerCount:
+	 *            number of miners in the farm
+	 * @return number of miners that can be unavailable at the same time. A percentage resolves to at least 1 miner
+	 */
+	public static int parseMaxUnavailable(final String value, final int minerCount)
+	{
+		final String trimmed = value.trim();
+		final String suffix = trimmed.endsWith(PERCENT_SUFFIX) ? PERCENT_SUFFIX : trimmed.endsWith("%") ? "%" : null;
+		final int maxUnavailable;
+		if (suffix != null)
+		{
+			final double percentage = Double.parseDouble(trimmed.substring(0, trimmed.length() - suffix.length()));
+			if (percentage <= 0 || percentage > 100)
+				throw new IllegalArgumentException("Max unavailable percentage must be in ]0, 100]");
+			maxUnavailable = Math.max(1, (int) (minerCount * percentage / 100));
+		} else
+			maxUnavailable = Integer.parseInt(trimmed);
+
+		if (maxUnavailable < 1)
+			throw new IllegalArgumentException("Max unavailable cannot be less than 1");
+
+		return maxUnavailable;
+	}
+
+	public boolean isAborted()
+	{
+		return aborted;
+	}
+
+	public boolean isCompleted()
+	{
+		return completed;
+	}
 }
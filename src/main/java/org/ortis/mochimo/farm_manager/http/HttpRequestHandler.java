@@ -17,18 +17,26 @@ package org.ortis.mochimo.farm_manager.http;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.LinkedHashMap;
 import java.util.Locale;
 import java.util.Map;
 import java.util.logging.Logger;
 
 import org.ortis.mochimo.farm_manager.beans.ErrorBean;
+import org.ortis.mochimo.farm_manager.beans.FarmCommandBean;
+import org.ortis.mochimo.farm_manager.beans.MinerHistoryBean;
 import org.ortis.mochimo.farm_manager.beans.MinerStatisticsBean;
+import org.ortis.mochimo.farm_manager.beans.MiningFarmMetricsBean;
 import org.ortis.mochimo.farm_manager.beans.MiningFarmStatisticsBean;
+import org.ortis.mochimo.farm_manager.beans.RollupBean;
 import org.ortis.mochimo.farm_manager.farm.MiningFarm;
+import org.ortis.mochimo.farm_manager.farm.MiningFarmHistory;
+import org.ortis.mochimo.farm_manager.farm.MiningFarmSnapshot;
 import org.ortis.mochimo.farm_manager.farm.MiningFarmStatistics;
 import org.ortis.mochimo.farm_manager.farm.miner.Miner;
 import org.ortis.mochimo.farm_manager.farm.miner.MinerStatistics;
+import org.ortis.mochimo.farm_manager.farm.miner.RollupSeries.Buckets;
 import org.ortis.mochimo.farm_manager.http.FarmCommandTask.Command;
 import org.ortis.mochimo.farm_manager.utils.Utils;
 
@@ -47,14 +55,39 @@ import com.sun.net.httpserver.HttpHandler;
 public class HttpRequestHandler implements HttpHandler
 {
 	private final static Gson GSON = new GsonBuilder().setPrettyPrinting().serializeNulls().create();
+	private final static int MAX_COMMAND_TASKS = 16;
+	private final static String DEFAULT_MAX_UNAVAILABLE = "10pct";
+	private final static Duration DEFAULT_RECOVERY_TIMEOUT = Duration.ofMinutes(10);
 
 	private final MiningFarm miningFarm;
 	private final Path htmlRepository;
+	private final int commandParallelism;
 	private final Logger log;
 
-	public HttpRequestHandler(final MiningFarm miningFarm, final Path htmlRepository, final Logger log)
+	// last farm commands by id, for progress polling
+	private final Map<Long, FarmCommandTask> commandTasks = new LinkedHashMap<Long, FarmCommandTask>()
+	{
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(final Map.Entry<Long, FarmCommandTask> eldest)
+		{
+			return size() > MAX_COMMAND_TASKS;
+		}
+	};
+
+	/**
+	 * 
+	 * @param miningFarm
+	 * @param htmlRepository
+	 * @param commandParallelism:
+	 *            maximum number of miners processed at the same time by a farm command
+	 * @param log
+	 */
+	public HttpRequestHandler(final MiningFarm miningFarm, final Path htmlRepository, final int commandParallelism, final Logger log)
 	{
 		this.miningFarm = miningFarm;
+		this.commandParallelism = commandParallelism;
 
 		this.htmlRepository = htmlRepository;
 		if (this.htmlRepository != null && !Files.isDirectory(this.htmlRepository))
@@ -103,13 +136,30 @@ public class HttpRequestHandler implements HttpHandler
 						}
 
 					} else if (upperPath.equals("/STATUS"))
-					{
+					{// miners=false to get the farm totals only
+						final Map<String, String> params = HttpServer.parseQuery(query, new LinkedHashMap<>());
+						final boolean includeMiners = !"false".equalsIgnoreCase(params.get("miners"));
+
+						final MiningFarmStatistics statistics = this.miningFarm.statistics(includeMiners);
+						final String entityTag = statistics.getEntityTag();
+						responseHeaders.put("ETag", entityTag);
+						if (entityTag.equals(httpExchange.getRequestHeaders().getFirst("If-None-Match")))
+						{
+							responseCode = 304;
+							break processRequest;
+						}
+
 						responseCode = 200;
 						responseHeaders.put("Content-type", "application/json");
-						final MiningFarmStatistics statistics = this.miningFarm.statistics();
 						final MiningFarmStatisticsBean bean = new MiningFarmStatisticsBean(statistics);
 						response = GSON.toJson(bean).getBytes();
 
+					} else if (upperPath.equals("/METRICS"))
+					{// not cached: changes on every request
+						responseCode = 200;
+						responseHeaders.put("Content-type", "application/json");
+						response = GSON.toJson(new MiningFarmMetricsBean(this.miningFarm)).getBytes();
+
 					} else if (upperPath.equals("/MINER"))
 					{
 
@@ -124,9 +174,10 @@ public class HttpRequestHandler implements HttpHandler
 							break processRequest;
 						}
 
-						final Miner miner = this.miningFarm.getMiner(minerId);
+						final MiningFarmSnapshot snapshot = this.miningFarm.getSnapshot();
+						final MinerStatistics statistics = snapshot.getStatistics(minerId);
 
-						if (miner == null)
+						if (statistics == null)
 						{
 							responseCode = 404;
 							responseHeaders.put("Content-type", "application/json");
@@ -135,12 +186,114 @@ public class HttpRequestHandler implements HttpHandler
 							break processRequest;
 						}
 
+						final String entityTag = "\"" + snapshot.getVersion() + "\"";
+						responseHeaders.put("ETag", entityTag);
+						if (entityTag.equals(httpExchange.getRequestHeaders().getFirst("If-None-Match")))
+						{
+							responseCode = 304;
+							break processRequest;
+						}
+
 						responseCode = 200;
 						responseHeaders.put("Content-type", "application/json");
-						final MinerStatistics statistics = miner.getStatistics();
 						final MinerStatisticsBean bean = new MinerStatisticsBean(statistics);
 						response = GSON.toJson(bean).getBytes();
 
+					} else if (upperPath.equals("/HISTORY"))
+					{// recent statistics of a miner (id) or of the farm (farm parameter, so that a miner can be named 'farm'): from/to in milli seconds since epoch,
+						// or the last seconds. Rollups if a resolution in seconds is specified
+						final Map<String, String> params = HttpServer.parseQuery(query, new LinkedHashMap<>());
+						final boolean farm = params.containsKey("farm");
+						final String minerId = farm ? "farm" : params.get("id");
+						if (minerId == null)
+						{
+							responseCode = 400;
+							responseHeaders.put("Content-type", "application/json");
+							final ErrorBean bean = new ErrorBean("id or farm must be specified");
+							response = GSON.toJson(bean).getBytes();
+							break processRequest;
+						}
+
+						if (!farm && this.miningFarm.getMiner(minerId) == null)
+						{
+							responseCode = 404;
+							responseHeaders.put("Content-type", "application/json");
+							final ErrorBean bean = new ErrorBean("Miner not found");
+							response = GSON.toJson(bean).getBytes();
+							break processRequest;
+						}
+
+						final long from;
+						final long to;
+						final Long resolution;
+						try
+						{
+							resolution = params.containsKey("resolution") ? Long.parseLong(params.get("resolution")) * 1000 : null;
+							if (params.containsKey("last"))
+							{
+								to = this.miningFarm.getHistory().currentTimeMillis();
+								from = to - Long.parseLong(params.get("last")) * 1000;
+							} else
+							{
+								from = params.containsKey("from") ? Long.parseLong(params.get("from")) : Long.MIN_VALUE;
+								to = params.containsKey("to") ? Long.parseLong(params.get("to")) : Long.MAX_VALUE;
+							}
+						} catch (final NumberFormatException e)
+						{
+							responseCode = 400;
+							responseHeaders.put("Content-type", "application/json");
+							final ErrorBean bean = new ErrorBean("Invalid time range - " + e.getMessage());
+							response = GSON.toJson(bean).getBytes();
+							break processRequest;
+						}
+
+						final MiningFarmHistory history = this.miningFarm.getHistory();
+						final Buckets buckets;
+						if (farm)
+							buckets = history.queryFarmRollup(from, to, resolution == null ? 0 : resolution);
+						else
+							buckets = resolution == null ? null : history.queryRollup(minerId, from, to, resolution);
+
+						responseCode = 200;
+						responseHeaders.put("Content-type", "application/json");
+						if (buckets == null)
+							response = GSON.toJson(new MinerHistoryBean(minerId, history.query(minerId, from, to))).getBytes();
+						else
+							response = GSON.toJson(new RollupBean(minerId, buckets)).getBytes();
+
+					} else if (upperPath.equals("/PROGRESS"))
+					{// progress of a farm command. Latest command if no id is specified
+						final Map<String, String> params = HttpServer.parseQuery(query, new LinkedHashMap<>());
+						final String taskId = params.get("id");
+
+						FarmCommandTask task = null;
+						synchronized (this.commandTasks)
+						{
+							if (taskId == null)
+							{
+								for (final FarmCommandTask t : this.commandTasks.values())
+									task = t;
+							} else
+								try
+								{
+									task = this.commandTasks.get(Long.parseLong(taskId));
+								} catch (final NumberFormatException e)
+								{
+									task = null;
+								}
+						}
+
+						responseHeaders.put("Content-type", "application/json");
+						if (task == null)
+						{
+							responseCode = 404;
+							response = GSON.toJson(new ErrorBean("Command not found")).getBytes();
+							break processRequest;
+						}
+
+						responseCode = 200;
+						response = GSON.toJson(new FarmCommandBean(task)).getBytes();
+
 					} else if (upperPath.equals("/COMMAND"))
 					{
 						final Map<String, String> params = HttpServer.parseQuery(query, new LinkedHashMap<>());
@@ -185,6 +338,10 @@ public class HttpRequestHandler implements HttpHandler
 									farmCommand = Command.Restart;
 									break;
 
+								case "ROLLINGRESTART":
+									farmCommand = Command.RollingRestart;
+									break;
+
 								default:
 								{
 
@@ -197,10 +354,41 @@ public class HttpRequestHandler implements HttpHandler
 								}
 							}
 
-							final FarmCommandTask fct = new FarmCommandTask(this.miningFarm, farmCommand, this.log);
-							this.log.info("Starting asynchronous command farm task '" + fct.getCommand() + "'");
+							final FarmCommandTask fct;
+							if (farmCommand == Command.RollingRestart)
+							{
+								final int maxUnavailable;
+								final int maxFailures;
+								final Duration recoveryTimeout;
+								try
+								{
+									maxUnavailable = FarmCommandTask.parseMaxUnavailable(params.getOrDefault("maxUnavailable", DEFAULT_MAX_UNAVAILABLE), this.miningFarm.getMiners().size());
+									final String maxFailuresParam = params.get("maxFailures");
+									maxFailures = maxFailuresParam == null ? maxUnavailable : Integer.parseInt(maxFailuresParam);
+									final String timeoutParam = params.get("timeout");
+									recoveryTimeout = timeoutParam == null ? DEFAULT_RECOVERY_TIMEOUT : Duration.ofSeconds(Long.parseLong(timeoutParam));
+									fct = new FarmCommandTask(this.miningFarm, farmCommand, this.commandParallelism, maxUnavailable, maxFailures, recoveryTimeout, this.log);
+								} catch (final IllegalArgumentException e)
+								{
+									responseCode = 400;
+									responseHeaders.put("Content-type", "application/json");
+									final ErrorBean bean = new ErrorBean("Invalid rolling restart parameters - " + e.getMessage());
+									response = GSON.toJson(bean).getBytes();
+									break processRequest;
+								}
+
+							} else
+								fct = new FarmCommandTask(this.miningFarm, farmCommand, this.commandParallelism, this.log);
+
+							synchronized (this.commandTasks)
+							{
+								this.commandTasks.put(fct.getId(), fct);
+							}
+							this.log.info("Starting asynchronous command farm task '" + fct.getCommand() + "' #" + fct.getId());
 							fct.start();
 							responseCode = 200;
+							responseHeaders.put("Content-type", "application/json");
+							response = GSON.toJson(new FarmCommandBean(fct)).getBytes();
 
 						} else
 						{
@@ -288,7 +476,7 @@ public class HttpRequestHandler implements HttpHandler
 		try
 		{
 			responseHeaders.forEach((k, v) -> httpExchange.getResponseHeaders().add(k, v));
-			httpExchange.sendResponseHeaders(responseCode, response.length);
+			httpExchange.sendResponseHeaders(responseCode, responseCode == 304 ? -1 : response.length);
 			final OutputStream os = httpExchange.getResponseBody();
 			os.write(response);
 			os.flush();
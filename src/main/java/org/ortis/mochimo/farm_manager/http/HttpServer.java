@@ -64,12 +64,14 @@ public class HttpServer
 
 	public static <D extends Map<String, String>> D parseQuery(final String query, final D destination)
 	{
+		if (query == null || query.isEmpty())
+			return destination;
 
 		final String [] buffer = query.split("&");
 		for (final String b : buffer)
 		{
-			final String [] bb = b.split("=");
-			destination.put(bb[0], bb[1]);
+			final String [] bb = b.split("=", 2);
+			destination.put(bb[0], bb.length > 1 ? bb[1] : "");
 		}
 
 		return destination;
@@ -5,7 +5,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.ortis.mochimo.farm_manager.farm.MiningFarm;
-import org.ortis.mochimo.farm_manager.farm.miner.Miner;
+import org.ortis.mochimo.farm_manager.farm.MiningFarmSnapshot;
 import org.ortis.mochimo.farm_manager.farm.miner.MinerStatistics;
 
 /**
@@ -54,45 +54,34 @@ public class MiningFarmNetworkConsensus implements NetworkConsensus
 	public synchronized void update() throws Exception
 	{
 
-		Integer height = null;
+		long height = 0;
 		int hi = 0;
-		Integer difficulty = null;
+		long difficulty = 0;
 		int di = 0;
 
+		final MiningFarmSnapshot snapshot = this.farm.getSnapshot();
 		for (final String minerId : this.minerIds)
 		{
-			final Miner miner = this.farm.getMiner(minerId);
-			if (miner == null)
-				continue;
-
-			final MinerStatistics stat = miner.getStatistics();
+			final MinerStatistics stat = snapshot.getStatistics(minerId);
 
 			if (stat == null || stat.isDefault())
 				continue;
 
-			final String hex = stat.getStatistics().get("Block");
-			if (hex != null)
+			if (stat.hasHeight())
 			{
-				if (height == null)
-					height = Integer.parseInt(hex.substring(2), 16);
-				else
-					height += Integer.parseInt(hex.substring(2), 16);
+				height += stat.getHeight();
 				hi++;
 			}
 
-			final String diff = stat.getStatistics().get("Difficulty");
-			if (diff != null)
+			if (stat.hasDifficulty())
 			{
-				if (difficulty == null)
-					difficulty = Integer.parseInt(diff);
-				else
-					difficulty += Integer.parseInt(diff);
+				difficulty += stat.getDifficulty();
 				di++;
 			}
 		}
 
-		this.height = height == null ? null : ((double) height / hi);
-		this.difficulty = difficulty == null ? null : ((double) difficulty / di);
+		this.height = hi == 0 ? null : ((double) height / hi);
+		this.difficulty = di == 0 ? null : ((double) difficulty / di);
 
 	}
 
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (C) 2018 Ortis (cao.ortis.org@gmail.com)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ ******************************************************************************/
+
+package org.ortis.mochimo.farm_manager.utils;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Create the threads of the manager. When virtual threads are enabled (Java 21+), each operation runs on its own virtual thread instead of a fixed pool of
+ * platform threads. Virtual threads are accessed by reflection so that the project still builds for Java 8
+ * 
+ * @author Ortis <br>
+ *         2018 Sep 23 3:02:51 PM <br>
+ */
+public class Threads
+{
+	private static volatile boolean virtual = false;
+
+	private Threads()
+	{
+
+	}
+
+	/**
+	 * 
+	 * @return true if the running JVM supports virtual threads
+	 */
+	public static boolean isVirtualThreadsSupported()
+	{
+		// Thread.ofVirtual() exists in Java 19 and 20 but throws UnsupportedOperationException unless preview features are enabled: call it
+		try
+		{
+			return Thread.class.getMethod("ofVirtual").invoke(null) != null;
+		} catch (final ReflectiveOperationException | RuntimeException e)
+		{
+			return false;
+		}
+	}
+
+	/**
+	 * Enable or disable virtual threads for the executors created afterward
+	 * 
+	 * @param enabled
+	 */
+	public static void setVirtualThreads(final boolean enabled)
+	{
+		if (enabled && !isVirtualThreadsSupported())
+			throw new IllegalStateException("Virtual threads require Java 21 or later (running " + System.getProperty("java.version") + ")");
+
+		virtual = enabled;
+	}
+
+	public static boolean isVirtualThreads()
+	{
+		return virtual;
+	}
+
+	/**
+	 * 
+	 * @param name:
+	 *            name prefix of the threads
+	 * @param parallelism:
+	 *            number of platform threads. Ignored with virtual threads: one thread is started per task
+	 * @return a new {@link ExecutorService}
+	 */
+	public static ExecutorService newExecutor(final String name, final int parallelism)
+	{
+		if (!virtual)
+			return Executors.newFixedThreadPool(parallelism);
+
+		try
+		{
+			final Method newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+			return (ExecutorService) newThreadPerTaskExecutor.invoke(null, virtualThreadFactory(name));
+		} catch (final ReflectiveOperationException e)
+		{
+			throw new IllegalStateException("Could not create virtual thread executor", e);
+		}
+	}
+
+	/**
+	 * 
+	 * @param name:
+	 *            name of the thread
+	 * @param runnable
+	 * @return a new unstarted {@link Thread}, virtual if enabled
+	 */
+	public static Thread newThread(final String name, final Runnable runnable)
+	{
+		final Thread thread;
+		if (virtual)
+			try
+			{
+				thread = virtualThreadFactory(name).newThread(runnable);
+			} catch (final ReflectiveOperationException e)
+			{
+				throw new IllegalStateException("Could not create virtual thread", e);
+			}
+		else
+			thread = new Thread(runnable);
+
+		thread.setName(name);
+		return thread;
+	}
+
+	private static ThreadFactory virtualThreadFactory(final String name) throws ReflectiveOperationException
+	{
+		// Thread.ofVirtual().name(name, 0).factory()
+		final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+		final Class<?> builderClass = Class.forName("java.lang.Thread$Builder$OfVirtual");
+		final Object namedBuilder = builderClass.getMethod("name", String.class, long.class).invoke(builder, name + "-", 0L);
+		return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(namedBuilder);
+	}
+
+}
@@ -0,0 +1,52 @@
+package org.ortis.mochimo.farm_manager.farm;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ortis.mochimo.farm_manager.farm.miner.MinerStatistics;
+
+public class AdaptivePollingPolicyTest
+{
+
+	@Test
+	public void test()
+	{
+		final AdaptivePollingPolicy policy = new AdaptivePollingPolicy(Duration.ofSeconds(60), 4);
+
+		// no statistics yet
+		Assert.assertEquals(Duration.ofSeconds(15), policy.next(new MinerStatistics("m", LocalDateTime.now())));
+
+		// started solving
+		Assert.assertEquals(Duration.ofSeconds(15), policy.next(solving(1000, 10)));
+
+		// stable: back off up to the slow interval
+		Assert.assertEquals(Duration.ofSeconds(60), policy.next(solving(1010, 10)));
+		Assert.assertEquals(Duration.ofSeconds(120), policy.next(solving(1000, 11)));
+		Assert.assertEquals(Duration.ofSeconds(240), policy.next(solving(1000, 11)));
+		Assert.assertEquals(Duration.ofSeconds(240), policy.next(solving(1000, 12)));
+
+		// hash rate drop
+		Assert.assertEquals(Duration.ofSeconds(60), policy.next(solving(500, 12)));
+
+		// height jump
+		Assert.assertEquals(Duration.ofSeconds(120), policy.next(solving(500, 13)));
+		Assert.assertEquals(Duration.ofSeconds(60), policy.next(solving(500, 20)));
+	}
+
+	private static MinerStatistics solving(final double hps, final long height)
+	{
+		final MinerStatistics statistics = new MinerStatistics("m", LocalDateTime.now());
+		statistics.setCpu(100);
+		statistics.addProcess("solving");
+		statistics.setGomochi(false);
+		statistics.setListen(false);
+		statistics.setSolving(true);
+		statistics.setSyncing(false);
+		statistics.setHps(hps);
+		statistics.setHeight(height);
+		return statistics;
+	}
+
+}
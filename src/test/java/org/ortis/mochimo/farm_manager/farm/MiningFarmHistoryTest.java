@@ -0,0 +1,65 @@
+package org.ortis.mochimo.farm_manager.farm;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ortis.mochimo.farm_manager.farm.miner.MinerStatistics;
+import org.ortis.mochimo.farm_manager.farm.miner.RollupSeries.Buckets;
+import org.ortis.mochimo.farm_manager.farm.miner.Rollups.Tier;
+
+public class MiningFarmHistoryTest
+{
+
+	@Test
+	public void test()
+	{
+		final long now = 100_000;
+		final MiningFarmHistory history = new MiningFarmHistory(10, Arrays.asList(new Tier(Duration.ofSeconds(1), 10), new Tier(Duration.ofSeconds(10), 10)),
+				Clock.fixed(Instant.ofEpochMilli(now), ZoneOffset.UTC));
+
+		final LocalDateTime probe = LocalDateTime.now();
+		final MinerStatistics a0 = statistics("a", probe, 100);
+		history.onStatistics(null, a0);
+
+		// log stream: the statistics of the same probe are updated. The sample is replaced, the rollups weight the probe once
+		final MinerStatistics a1 = statistics("a", probe, 300);
+		history.onStatistics(a0, a1);
+		Assert.assertEquals(1, history.query("a", Long.MIN_VALUE, Long.MAX_VALUE).size());
+		Assert.assertEquals(300, history.query("a", Long.MIN_VALUE, Long.MAX_VALUE).getHps(0), 0);
+
+		Buckets buckets = history.queryRollup("a", now - 5_000, now, 1_000);
+		Assert.assertEquals(1_000, buckets.getWidth());
+		Assert.assertEquals(1, buckets.size());
+		Assert.assertEquals(100, buckets.getAvg(0), 0);
+
+		// next probe
+		final MinerStatistics a2 = statistics("a", probe.plusSeconds(1), 200);
+		history.onStatistics(a1, a2);
+		Assert.assertEquals(150, history.queryRollup("a", now - 5_000, now, 1_000).getAvg(0), 0);
+
+		// the 1 s tier holds 10 s: a longer range reads the 10 s tier
+		buckets = history.queryRollup("a", now - 20_000, now, 1_000);
+		Assert.assertEquals(10_000, buckets.getWidth());
+		Assert.assertEquals(150, buckets.getAvg(0), 0);
+
+		// unknown miner
+		Assert.assertEquals(0, history.queryRollup("b", now - 5_000, now, 1_000).size());
+		Assert.assertNull(history.queryRollup("b", now - 5_000, now, 10));
+		Assert.assertEquals(0, history.query("b", Long.MIN_VALUE, Long.MAX_VALUE).size());
+	}
+
+	private static MinerStatistics statistics(final String minerId, final LocalDateTime time, final double hps)
+	{
+		final MinerStatistics statistics = new MinerStatistics(minerId, time);
+		statistics.setCpu(100);
+		statistics.setHps(hps);
+		return statistics;
+	}
+
+}
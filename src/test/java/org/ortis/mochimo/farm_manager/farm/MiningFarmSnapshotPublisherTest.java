@@ -0,0 +1,67 @@
+package org.ortis.mochimo.farm_manager.farm;
+
+import java.time.LocalDateTime;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ortis.mochimo.farm_manager.farm.miner.MinerStatistics;
+
+public class MiningFarmSnapshotPublisherTest
+{
+
+	@Test
+	public void test()
+	{
+		final MiningFarmSnapshotPublisher publisher = new MiningFarmSnapshotPublisher();
+		Assert.assertEquals(0, publisher.getSnapshot().getVersion());
+		Assert.assertTrue(publisher.getSnapshot().getMiners().isEmpty());
+
+		final MinerStatistics a0 = new MinerStatistics("a", LocalDateTime.now());
+		final MinerStatistics b0 = new MinerStatistics("b", LocalDateTime.now());
+		publisher.onStatistics(null, a0);
+		publisher.onStatistics(null, b0);
+		Assert.assertEquals(2, publisher.getSnapshot().getVersion());
+		Assert.assertEquals(2, publisher.getSnapshot().getMiners().size());
+		Assert.assertEquals("a", publisher.getSnapshot().getMiners().get(0).getMinerId());
+		Assert.assertEquals("b", publisher.getSnapshot().getMiners().get(1).getMinerId());
+
+		final MinerStatistics a1 = statistics("a", true, 1000.5, 3);
+		publisher.onStatistics(a0, a1);
+
+		// previous snapshots are not modified
+		final MiningFarmSnapshot snapshot = publisher.getSnapshot();
+
+		final MinerStatistics b1 = statistics("b", true, 0.1, 4);
+		publisher.onStatistics(b0, b1);
+		Assert.assertSame(b0, snapshot.getStatistics("b"));
+		Assert.assertSame(b1, publisher.getSnapshot().getStatistics("b"));
+		Assert.assertSame(a1, publisher.getSnapshot().getStatistics("a"));
+		Assert.assertEquals(snapshot.getVersion() + 1, publisher.getSnapshot().getVersion());
+		Assert.assertNull(publisher.getSnapshot().getStatistics("c"));
+		Assert.assertEquals(2, publisher.getSnapshot().getMiners().size());
+
+		// totals come from the same snapshot as the miners
+		Assert.assertEquals(1000.5, snapshot.getTotals().getHPS(), 0);
+		Assert.assertEquals(1000.6, publisher.getSnapshot().getTotals().getHPS(), 0);
+		Assert.assertEquals(2, publisher.getSnapshot().getTotals().getSolvingMiners());
+
+		// the totals ignore the previous statistics given by the caller
+		final MinerStatistics a2 = statistics("a", true, 1, 1);
+		publisher.onStatistics(a0, a2);
+		Assert.assertEquals(1.1, publisher.getSnapshot().getTotals().getHPS(), 1e-9);
+		Assert.assertEquals(5, publisher.getSnapshot().getTotals().getSolved());
+		Assert.assertEquals(2, publisher.getSnapshot().getTotals().getSolvingMiners());
+	}
+
+	private static MinerStatistics statistics(final String minerId, final boolean solving, final double hps, final long solved)
+	{
+		final MinerStatistics statistics = new MinerStatistics(minerId, LocalDateTime.now());
+		statistics.setCpu(100);
+		statistics.addProcess("mochimo");
+		statistics.setSolving(solving);
+		statistics.setHps(hps);
+		statistics.setSolved(solved);
+		return statistics;
+	}
+
+}
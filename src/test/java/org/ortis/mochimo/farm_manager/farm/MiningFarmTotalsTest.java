@@ -0,0 +1,59 @@
+package org.ortis.mochimo.farm_manager.farm;
+
+import java.time.LocalDateTime;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ortis.mochimo.farm_manager.farm.miner.MinerStatistics;
+
+public class MiningFarmTotalsTest
+{
+
+	@Test
+	public void test()
+	{
+		MiningFarmTotals totals = MiningFarmTotals.ZERO;
+
+		final MinerStatistics a0 = new MinerStatistics("a", LocalDateTime.now());
+		final MinerStatistics b0 = new MinerStatistics("b", LocalDateTime.now());
+		totals = totals.replace(null, a0).replace(null, b0);
+		assertTotals(totals, 0, 0, 0, 0);
+
+		final MinerStatistics a1 = statistics("a", true, 1000.5, 3);
+		final MinerStatistics b1 = statistics("b", false, 500, 2);
+		totals = totals.replace(a0, a1).replace(b0, b1);
+		assertTotals(totals, 1000.5, 5, 1, 2);
+
+		// replaced
+		final MinerStatistics b2 = statistics("b", true, 0.1, 4);
+		totals = totals.replace(b1, b2);
+		assertTotals(totals, 1000.6, 7, 2, 2);
+
+		// cleared
+		totals = totals.replace(a1, new MinerStatistics("a", LocalDateTime.now()));
+		assertTotals(totals, 0.1, 4, 1, 1);
+
+		totals = totals.replace(b2, new MinerStatistics("b", LocalDateTime.now()));
+		assertTotals(totals, 0, 0, 0, 0);
+	}
+
+	private static void assertTotals(final MiningFarmTotals totals, final double hps, final long solved, final int solving, final int running)
+	{
+		Assert.assertEquals(hps, totals.getHPS(), 0);
+		Assert.assertEquals(solved, totals.getSolved());
+		Assert.assertEquals(solving, totals.getSolvingMiners());
+		Assert.assertEquals(running, totals.getRunningMiners());
+	}
+
+	private static MinerStatistics statistics(final String minerId, final boolean solving, final double hps, final long solved)
+	{
+		final MinerStatistics statistics = new MinerStatistics(minerId, LocalDateTime.now());
+		statistics.setCpu(100);
+		statistics.addProcess("mochimo");
+		statistics.setSolving(solving);
+		statistics.setHps(hps);
+		statistics.setSolved(solved);
+		return statistics;
+	}
+
+}
@@ -0,0 +1,58 @@
+package org.ortis.mochimo.farm_manager.farm.miner;
+
+import java.time.Duration;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CircuitBreakerTest
+{
+
+	@Test
+	public void test() throws InterruptedException
+	{
+		final CircuitBreaker breaker = new CircuitBreaker(2, Duration.ofMillis(50), Duration.ofMillis(100));
+
+		Assert.assertTrue(breaker.tryAcquire());
+		breaker.onFailure();
+		Assert.assertEquals(CircuitBreaker.State.Closed, breaker.getState());
+		Assert.assertTrue(breaker.tryAcquire());
+		breaker.onFailure();
+		Assert.assertEquals(CircuitBreaker.State.Open, breaker.getState());
+		Assert.assertFalse(breaker.isAvailable());
+		Assert.assertFalse(breaker.tryAcquire());
+
+		Thread.sleep(60);
+
+		// single trial
+		Assert.assertTrue(breaker.isAvailable());
+		Assert.assertTrue(breaker.tryAcquire());
+		Assert.assertEquals(CircuitBreaker.State.HalfOpen, breaker.getState());
+		Assert.assertFalse(breaker.tryAcquire());
+
+		// failed trial: open again, longer
+		breaker.onFailure();
+		Assert.assertEquals(CircuitBreaker.State.Open, breaker.getState());
+		Assert.assertTrue(breaker.getRemainingOpenDuration().toMillis() > 50);
+
+		Thread.sleep(110);
+		Assert.assertTrue(breaker.tryAcquire());
+		breaker.onSuccess();
+		Assert.assertEquals(CircuitBreaker.State.Closed, breaker.getState());
+	}
+
+	@Test
+	public void timeout()
+	{
+		final AdaptiveTimeout timeout = new AdaptiveTimeout(10, 0.9, 4, Duration.ofMillis(100), Duration.ofMillis(10000));
+		Assert.assertEquals(10000, timeout.get());
+
+		for (int i = 1; i <= 10; i++)
+			timeout.record(i * 10);
+		Assert.assertEquals(360, timeout.get());
+
+		timeout.recordTimeout();
+		Assert.assertEquals(400, timeout.get());
+	}
+
+}
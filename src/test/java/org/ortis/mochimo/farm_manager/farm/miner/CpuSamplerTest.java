@@ -0,0 +1,51 @@
+package org.ortis.mochimo.farm_manager.farm.miner;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CpuSamplerTest
+{
+
+	@Test
+	public void test()
+	{
+		final CpuSampler sampler = new CpuSampler();
+		final Map<String, Float> processCpu = new HashMap<>();
+
+		// first sample: reference only
+		Assert.assertNull(sampler.sample(Arrays.asList("cpu  300 0 100 500 100 0 0 0 0 0", "1234 (mochimo) S 1 1234 1234 0 -1 4194560 100 0 0 0 50 10 0 0 20 0 1 0 100 0 0"),
+				processCpu));
+		Assert.assertTrue(processCpu.isEmpty());
+
+		// +1000 ticks, 200 idle and 50 iowait, mochimo used 500
+		Float cpu = sampler.sample(Arrays.asList("cpu  1000 0 150 700 150 0 0 0 0 0", "1234 (mochimo) S 1 1234 1234 0 -1 4194560 100 0 0 0 500 60 0 0 20 0 1 0 100 0 0"),
+				processCpu);
+		Assert.assertEquals(80f, cpu, 0.001);
+		Assert.assertEquals(50f, processCpu.get("1234"), 0.001);
+
+		// +100 ticks, 100 idle
+		processCpu.clear();
+		cpu = sampler.sample(Arrays.asList("cpu  1000 0 150 800 150 0 0 0 0 0", "1234 (mochimo) S 1 1234 1234 0 -1 4194560 100 0 0 0 500 60 0 0 20 0 1 0 100 0 0"),
+				processCpu);
+		Assert.assertEquals(0f, cpu, 0.001);
+		Assert.assertEquals(0f, processCpu.get("1234"), 0.001);
+
+		// counters reset by a reboot: new reference
+		processCpu.clear();
+		Assert.assertNull(sampler.sample(Arrays.asList("cpu  10 0 10 80 0 0 0 0 0 0"), processCpu));
+		Assert.assertEquals(50f, sampler.sample(Arrays.asList("cpu  60 0 10 130 0 0 0 0 0 0"), processCpu), 0.001);
+
+		// reset: new reference
+		sampler.reset();
+		Assert.assertNull(sampler.sample(Arrays.asList("cpu  100 0 10 130 0 0 0 0 0 0"), processCpu));
+		Assert.assertEquals(100f, sampler.sample(Arrays.asList("cpu  200 0 10 130 0 0 0 0 0 0"), processCpu), 0.001);
+		Assert.assertTrue(processCpu.isEmpty());
+
+		Assert.assertNull(sampler.sample(Arrays.asList("garbage"), processCpu));
+	}
+
+}
@@ -0,0 +1,133 @@
+package org.ortis.mochimo.farm_manager.farm.miner;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HostLimiterTest
+{
+
+	@Test
+	public void concurrency() throws Exception
+	{
+		final HostLimiter limiter = new HostLimiter("host", 2, 1000);
+		limiter.acquire();
+		limiter.acquire();
+		Assert.assertEquals(2, limiter.getInFlight());
+
+		final CountDownLatch acquired = new CountDownLatch(1);
+		final Thread thread = new Thread(() -> {
+			try
+			{
+				limiter.acquire();
+				acquired.countDown();
+			} catch (final InterruptedException e)
+			{
+			}
+		});
+		thread.start();
+
+		// no permit left: the third command waits
+		Assert.assertFalse(acquired.await(200, TimeUnit.MILLISECONDS));
+		Assert.assertEquals(1, limiter.getQueued());
+
+		limiter.release();
+		Assert.assertTrue(acquired.await(5, TimeUnit.SECONDS));
+		Assert.assertEquals(2, limiter.getInFlight());
+		Assert.assertEquals(0, limiter.getQueued());
+		Assert.assertEquals(3, limiter.getAcquired());
+		thread.join();
+	}
+
+	@Test
+	public void burst() throws Exception
+	{
+		final HostLimiter limiter = new HostLimiter("host", 1, 5);
+
+		// the bucket holds one second of commands
+		long start = System.nanoTime();
+		for (int i = 0; i < 5; i++)
+			limiter.throttle();
+		Assert.assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(150));
+
+		// then one command every 200 ms
+		start = System.nanoTime();
+		limiter.throttle();
+		Assert.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(150));
+	}
+
+	@Test
+	public void reservation() throws Exception
+	{
+		final HostLimiter limiter = new HostLimiter("host", 2, 2);
+		limiter.throttle();
+		limiter.throttle();
+
+		// concurrent callers reserve consecutive tokens: they do not all wake up on the same token
+		final AtomicLong first = new AtomicLong();
+		final AtomicLong second = new AtomicLong();
+		final long start = System.nanoTime();
+		final Thread a = new Thread(() -> throttle(limiter, first, start));
+		final Thread b = new Thread(() -> throttle(limiter, second, start));
+		a.start();
+		b.start();
+		a.join();
+		b.join();
+
+		final long shortest = Math.min(first.get(), second.get());
+		final long longest = Math.max(first.get(), second.get());
+		Assert.assertTrue(shortest >= TimeUnit.MILLISECONDS.toNanos(400));
+		Assert.assertTrue(longest >= TimeUnit.MILLISECONDS.toNanos(900));
+		Assert.assertTrue(longest - shortest >= TimeUnit.MILLISECONDS.toNanos(400));
+	}
+
+	@Test
+	public void interrupt() throws Exception
+	{
+		final HostLimiter limiter = new HostLimiter("host", 2, 1);
+		limiter.throttle();// empty the bucket: the next acquire waits one second for its token
+
+		final AtomicBoolean interrupted = new AtomicBoolean();
+		final Thread thread = new Thread(() -> {
+			try
+			{
+				limiter.acquire();
+			} catch (final InterruptedException e)
+			{
+				interrupted.set(true);
+			}
+		});
+		thread.start();
+
+		// wait for the permit to be taken while the token is awaited
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (limiter.getInFlight() == 0 && System.nanoTime() < deadline)
+			Thread.sleep(1);
+		Assert.assertEquals(1, limiter.getInFlight());
+
+		thread.interrupt();
+		thread.join();
+
+		// the permit is released
+		Assert.assertTrue(interrupted.get());
+		Assert.assertEquals(0, limiter.getInFlight());
+		Assert.assertEquals(0, limiter.getQueued());
+		Assert.assertEquals(0, limiter.getAcquired());
+	}
+
+	private static void throttle(final HostLimiter limiter, final AtomicLong wait, final long start)
+	{
+		try
+		{
+			limiter.throttle();
+			wait.set(System.nanoTime() - start);
+		} catch (final InterruptedException e)
+		{
+		}
+	}
+
+}
@@ -0,0 +1,49 @@
+package org.ortis.mochimo.farm_manager.farm.miner;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IncrementalLogReaderTest
+{
+
+	@Test
+	public void test()
+	{
+		final MinerLogParser parser = new MinerLogParser();
+		final IncrementalLogReader reader = new IncrementalLogReader("/home/user/miner.log", parser);
+
+		// first read starts in the middle of the file: first line is truncated
+		reader.accept(Arrays.asList("1234 100 200 reset", "cond: 1 Difficulty: 2", "Solved: 3 Haiku/second: 1500 Difficulty: 34", "block: 0x2a", "#mfm-end"));
+		Assert.assertEquals("1234", reader.getInode());
+		Assert.assertEquals(200, reader.getOffset());
+
+		MinerStatistics stat = new MinerStatistics("miner", LocalDateTime.now());
+		parser.apply(stat);
+		Assert.assertEquals(3, stat.getSolved());
+		Assert.assertEquals(1500, stat.getHps(), 0);
+		Assert.assertEquals(34, stat.getDifficulty());
+		Assert.assertEquals(42, stat.getHeight());
+		Assert.assertEquals("0x2a", stat.getBlock());
+
+		// resume: unterminated line is read again next time, parser state carries over
+		reader.accept(Arrays.asList("1234 200 230 resume", "block: 0x2b", "Solved: 4#mfm-end"));
+		Assert.assertEquals(230 - "Solved: 4".length(), reader.getOffset());
+		stat = new MinerStatistics("miner", LocalDateTime.now());
+		parser.apply(stat);
+		Assert.assertEquals(3, stat.getSolved());
+		Assert.assertEquals(43, stat.getHeight());
+
+		// truncated log: parser is reset
+		reader.accept(Arrays.asList("1234 0 1 reset", "", "#mfm-end"));
+		Assert.assertEquals(1, reader.getOffset());
+		stat = new MinerStatistics("miner", LocalDateTime.now());
+		parser.apply(stat);
+		Assert.assertFalse(stat.hasLogStatistics());
+
+		Assert.assertTrue(reader.command().contains("-ge 1"));
+	}
+
+}
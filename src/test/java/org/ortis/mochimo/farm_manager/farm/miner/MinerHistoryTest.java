@@ -0,0 +1,59 @@
+package org.ortis.mochimo.farm_manager.farm.miner;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ortis.mochimo.farm_manager.farm.miner.MinerHistory.Samples;
+
+public class MinerHistoryTest
+{
+
+	@Test
+	public void test()
+	{
+		final MinerHistory history = new MinerHistory(4);
+		Assert.assertEquals(0, history.query(Long.MIN_VALUE, Long.MAX_VALUE).size());
+
+		history.record(10, 100, 50, 1, 0);
+		history.record(20, 200, 60, 2, 0);
+		history.record(30, 300, 70, 3, 1);
+
+		Samples samples = history.query(15, 30);
+		Assert.assertEquals(2, samples.size());
+		Assert.assertEquals(20, samples.getTime(0));
+		Assert.assertEquals(200, samples.getHps(0), 0);
+		Assert.assertEquals(30, samples.getTime(1));
+		Assert.assertEquals(1, samples.getSolved(1));
+
+		// same time: replaced
+		history.record(30, 310, 70, 3, 1);
+		Assert.assertEquals(3, history.size());
+		Assert.assertEquals(310, history.query(30, 30).getHps(0), 0);
+
+		// older: dropped
+		history.record(25, 250, 70, 3, 1);
+		Assert.assertEquals(3, history.size());
+		Assert.assertEquals(30, history.getNewestTime());
+
+		// full: oldest overwritten
+		history.record(40, 400, 80, 4, 1);
+		history.record(50, Float.NaN, 90, -1, 1);
+		Assert.assertEquals(4, history.size());
+		samples = history.query(Long.MIN_VALUE, Long.MAX_VALUE);
+		Assert.assertEquals(4, samples.size());
+		Assert.assertEquals(20, samples.getTime(0));
+		Assert.assertEquals(50, samples.getTime(3));
+		Assert.assertTrue(Float.isNaN(samples.getHps(3)));
+		Assert.assertEquals(-1, samples.getHeight(3));
+
+		samples = history.query(35, 45);
+		Assert.assertEquals(1, samples.size());
+		Assert.assertEquals(4, samples.getHeight(0));
+
+		Assert.assertEquals(0, history.query(60, 70).size());
+		Assert.assertEquals(0, history.query(41, 49).size());
+
+		history.clear();
+		Assert.assertEquals(0, history.query(Long.MIN_VALUE, Long.MAX_VALUE).size());
+	}
+
+}
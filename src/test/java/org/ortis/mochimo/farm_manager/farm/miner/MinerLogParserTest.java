@@ -0,0 +1,71 @@
+package org.ortis.mochimo.farm_manager.farm.miner;
+
+import java.time.LocalDateTime;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MinerLogParserTest
+{
+
+	@Test
+	public void test()
+	{
+		final MinerLogParser parser = new MinerLogParser();
+		MinerStatistics stat = apply(parser);
+		Assert.assertFalse(stat.hasLogStatistics());
+
+		// status line of the miner
+		Assert.assertTrue(parser.accept("Solved: 0  Haiku/second: 1875241  Difficulty: 34"));
+		stat = apply(parser);
+		Assert.assertEquals(0, stat.getSolved());
+		Assert.assertEquals(1875241, stat.getHps(), 0);
+		Assert.assertEquals(34, stat.getDifficulty());
+		Assert.assertTrue(stat.getExtensions().isEmpty());
+
+		// same values: nothing updated
+		Assert.assertFalse(parser.accept("Solved: 0  Haiku/second: 1875241  Difficulty: 34"));
+
+		// unknown keys are kept as text
+		Assert.assertTrue(parser.accept("Solved: 1  Haiku/second: 1901337.5  Difficulty: 35  Bcon: 12"));
+		stat = apply(parser);
+		Assert.assertEquals(1, stat.getSolved());
+		Assert.assertEquals(1901337.5, stat.getHps(), 0);
+		Assert.assertEquals(35, stat.getDifficulty());
+		Assert.assertEquals("12", stat.getExtensions().get("Bcon"));
+		Assert.assertFalse(parser.accept("Solved: 1  Bcon: 12"));
+
+		// invalid values are ignored
+		Assert.assertFalse(parser.accept("Solved: n/a  Haiku/second: n/a"));
+		Assert.assertEquals(1901337.5, apply(parser).getHps(), 0);
+
+		// block line: hexadecimal height
+		Assert.assertTrue(parser.accept("Got block: 0x2a3c from 10.0.0.2"));
+		stat = apply(parser);
+		Assert.assertEquals(0x2a3c, stat.getHeight());
+		Assert.assertEquals("0x2a3c", stat.getBlock());
+		Assert.assertFalse(parser.accept("Got block: 0x2a3c from 10.0.0.3"));
+		Assert.assertFalse(parser.accept("Got block: 0xzz"));
+		Assert.assertFalse(parser.accept("Waiting for peers..."));
+		Assert.assertTrue(parser.accept("Got block: 0x2a3d"));
+		Assert.assertEquals(0x2a3d, apply(parser).getHeight());
+
+		// log reset
+		parser.reset();
+		stat = apply(parser);
+		Assert.assertFalse(stat.hasLogStatistics());
+		Assert.assertTrue(Double.isNaN(stat.getHps()));
+		Assert.assertEquals(MinerStatistics.UNKNOWN, stat.getSolved());
+		Assert.assertEquals(MinerStatistics.UNKNOWN, stat.getHeight());
+		Assert.assertTrue(stat.getExtensions().isEmpty());
+		Assert.assertTrue(parser.accept("Got block: 0x2a3d"));
+	}
+
+	private static MinerStatistics apply(final MinerLogParser parser)
+	{
+		final MinerStatistics stat = new MinerStatistics("miner", LocalDateTime.now());
+		parser.apply(stat);
+		return stat;
+	}
+
+}
@@ -0,0 +1,57 @@
+package org.ortis.mochimo.farm_manager.farm.miner;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ProcessLineTest
+{
+
+	@Test
+	public void test() throws Exception
+	{
+		final List<String> roles = new ArrayList<>();
+		final List<Long> gomochi = new ArrayList<>();
+		final ProcessLine processLine = new ProcessLine();
+
+		try (final BufferedReader reader = new BufferedReader(new InputStreamReader(ProcessLineTest.class.getResourceAsStream("/ps_faux.txt"), StandardCharsets.UTF_8)))
+		{
+			String line;
+			while ((line = reader.readLine()) != null)
+			{
+				Assert.assertTrue(processLine.parse(line));
+				if (processLine.isGrep())
+					continue;
+
+				if (processLine.isGomochi())
+					gomochi.add(processLine.getPid());
+				else if (processLine.hasRole())
+					roles.add(processLine.getRole());
+			}
+		}
+
+		Assert.assertEquals(1, gomochi.size());
+		Assert.assertEquals(1822L, (long) gomochi.get(0));
+		Assert.assertEquals(4, roles.size());
+		Assert.assertEquals("-t0 -d -F -cmochi.cfg", roles.get(0));
+		Assert.assertEquals("listen", roles.get(1));
+		Assert.assertEquals("solving", roles.get(2));
+		Assert.assertEquals("update", roles.get(3));
+
+		// token boundary
+		Assert.assertTrue(processLine.parse("miner     1900  0.0  0.0  11300  3052 ?        S    Sep10   0:00 /bin/bash ./gomochi"));
+		Assert.assertTrue(processLine.isGomochi());
+		Assert.assertTrue(processLine.parse("miner     1901  0.0  0.0  11300  3052 pts/0    S+   Sep10   0:00 vi gomochi.sh"));
+		Assert.assertFalse(processLine.isGomochi());
+		Assert.assertTrue(processLine.parse("miner     1902  0.0  0.0  11300  3052 pts/0    S+   Sep10   0:00 tail -f gomochi.log gomochi2"));
+		Assert.assertFalse(processLine.isGomochi());
+
+		Assert.assertFalse(processLine.parse("USER       PID %CPU %MEM    VSZ   RSS TTY      STAT START   TIME COMMAND"));
+	}
+
+}
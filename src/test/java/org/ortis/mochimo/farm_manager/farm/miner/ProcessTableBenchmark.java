@@ -0,0 +1,101 @@
+package org.ortis.mochimo.farm_manager.farm.miner;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compare the regex based parsing of <code>ps faux</code> with {@link ProcessLine} on captured output.<br>
+ * Run with <code>mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java "-Dexec.args=-cp %classpath org.ortis.mochimo.farm_manager.farm.miner.ProcessTableBenchmark"</code>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProcessTableBenchmark
+{
+	private List<String> lines;
+	private final ProcessLine processLine = new ProcessLine();
+
+	@Setup
+	public void setUp() throws Exception
+	{
+		this.lines = new ArrayList<>();
+		try (final BufferedReader reader = new BufferedReader(new InputStreamReader(ProcessTableBenchmark.class.getResourceAsStream("/ps_faux.txt"), StandardCharsets.UTF_8)))
+		{
+			String line;
+			while ((line = reader.readLine()) != null)
+				this.lines.add(line);
+		}
+	}
+
+	@Benchmark
+	public void regex(final Blackhole blackhole)
+	{
+		for (String line : this.lines)
+		{
+			String [] buffer = line.split(" +");
+
+			final StringBuilder sb = new StringBuilder();
+			for (int i = 1; i < buffer.length; i++)
+				sb.append(buffer[i]).append(" ");
+
+			line = sb.toString();
+
+			if (line.contains("grep"))
+				continue;
+
+			if (line.contains("gomochi"))
+			{
+				blackhole.consume(buffer[1]);
+				blackhole.consume("gomochi");
+			} else
+			{
+				buffer = line.split("mochimo ");
+				if (buffer.length > 1)
+					blackhole.consume(buffer[1].trim());
+			}
+		}
+	}
+
+	@Benchmark
+	public void scanner(final Blackhole blackhole)
+	{
+		for (final String line : this.lines)
+		{
+			if (!this.processLine.parse(line) || this.processLine.isGrep())
+				continue;
+
+			if (this.processLine.isGomochi())
+			{
+				blackhole.consume(this.processLine.getPid());
+				blackhole.consume("gomochi");
+			} else if (this.processLine.hasRole())
+				blackhole.consume(this.processLine.getRole());
+		}
+	}
+
+	public static void main(final String [] args) throws Exception
+	{
+		new Runner(new OptionsBuilder().include(ProcessTableBenchmark.class.getSimpleName()).build()).run();
+	}
+}
@@ -0,0 +1,66 @@
+package org.ortis.mochimo.farm_manager.farm.miner;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ortis.mochimo.farm_manager.farm.miner.RestartBudget.Severity;
+
+public class RestartBudgetTest
+{
+
+	@Test
+	public void test()
+	{
+		final AtomicLong clock = new AtomicLong();
+		final RestartBudget budget = new RestartBudget(2, Duration.ofNanos(100), clock::get);
+
+		Assert.assertTrue(budget.tryAcquire("a", Severity.Lag));
+		Assert.assertTrue(budget.tryAcquire("b", Severity.Lag));
+		Assert.assertEquals(0, budget.getAvailable());
+
+		// budget exhausted: deferred
+		clock.set(10);
+		Assert.assertFalse(budget.tryAcquire("c", Severity.Uptime));
+		Assert.assertFalse(budget.tryAcquire("d", Severity.Lag));
+		Assert.assertFalse(budget.tryAcquire("e", Severity.Downtime));
+		Assert.assertEquals(3, budget.getDeferred());
+
+		// window slides: most severe first
+		clock.set(100);
+		Assert.assertEquals(2, budget.getAvailable());
+		Assert.assertFalse(budget.tryAcquire("c", Severity.Uptime));// d and e take both restarts
+		Assert.assertTrue(budget.tryAcquire("d", Severity.Lag));// e takes only one
+		Assert.assertFalse(budget.tryAcquire("c", Severity.Uptime));
+		Assert.assertTrue(budget.tryAcquire("e", Severity.Downtime));
+		Assert.assertFalse(budget.tryAcquire("c", Severity.Uptime));
+		Assert.assertEquals(1, budget.getDeferred());
+
+		// policy no longer triggered
+		budget.cancel("c");
+		Assert.assertEquals(0, budget.getDeferred());
+
+		// same severity: oldest first
+		clock.set(150);
+		Assert.assertFalse(budget.tryAcquire("f", Severity.Lag));
+		clock.set(160);
+		Assert.assertFalse(budget.tryAcquire("g", Severity.Lag));
+		clock.set(170);
+		Assert.assertFalse(budget.tryAcquire("h", Severity.Lag));
+		clock.set(200);
+		Assert.assertFalse(budget.tryAcquire("h", Severity.Lag));
+		Assert.assertTrue(budget.tryAcquire("g", Severity.Lag));
+		Assert.assertFalse(budget.tryAcquire("h", Severity.Lag));
+		Assert.assertTrue(budget.tryAcquire("f", Severity.Lag));
+		Assert.assertFalse(budget.tryAcquire("h", Severity.Lag));
+		budget.cancel("h");
+
+		// stale requests expire
+		clock.set(250);
+		Assert.assertFalse(budget.tryAcquire("h", Severity.Uptime));
+		clock.set(350);
+		Assert.assertEquals(0, budget.getDeferred());
+	}
+
+}
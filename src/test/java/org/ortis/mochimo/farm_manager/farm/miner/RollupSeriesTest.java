@@ -0,0 +1,89 @@
+package org.ortis.mochimo.farm_manager.farm.miner;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ortis.mochimo.farm_manager.farm.miner.RollupSeries.Buckets;
+import org.ortis.mochimo.farm_manager.farm.miner.Rollups.Tier;
+
+public class RollupSeriesTest
+{
+
+	@Test
+	public void test()
+	{
+		final RollupSeries series = new RollupSeries(Duration.ofMillis(10), 3);
+		Assert.assertEquals(0, series.query(Long.MIN_VALUE, Long.MAX_VALUE).size());
+
+		series.record(0, 4);
+		series.record(5, 2);
+		series.record(9, 6);
+		series.record(12, 10);
+		series.record(13, Float.NaN);
+
+		Buckets buckets = series.query(Long.MIN_VALUE, Long.MAX_VALUE);
+		Assert.assertEquals(2, buckets.size());
+		Assert.assertEquals(0, buckets.getTime(0));
+		Assert.assertEquals(2, buckets.getMin(0), 0);
+		Assert.assertEquals(6, buckets.getMax(0), 0);
+		Assert.assertEquals(4, buckets.getAvg(0), 0);
+		Assert.assertEquals(6, buckets.getLast(0), 0);
+		Assert.assertEquals(10, buckets.getTime(1));
+		Assert.assertEquals(10, buckets.getLast(1), 0);
+
+		// empty bucket skipped, oldest bucket overwritten
+		series.record(31, 1);
+		buckets = series.query(Long.MIN_VALUE, Long.MAX_VALUE);
+		Assert.assertEquals(2, buckets.size());
+		Assert.assertEquals(10, buckets.getTime(0));
+		Assert.assertEquals(30, buckets.getTime(1));
+
+		// too old: dropped
+		series.record(1, 100);
+		Assert.assertEquals(2, series.query(Long.MIN_VALUE, Long.MAX_VALUE).size());
+
+		buckets = series.query(25, 40);
+		Assert.assertEquals(1, buckets.size());
+		Assert.assertEquals(1, buckets.getAvg(0), 0);
+	}
+
+	@Test
+	public void testTiers()
+	{
+		final Rollups rollups = new Rollups(Arrays.asList(new Tier(Duration.ofMillis(10), 10), new Tier(Duration.ofMillis(100), 10)));
+		Assert.assertNull(rollups.select(5));
+		Assert.assertEquals(10, rollups.select(50).getWidth());
+		Assert.assertEquals(100, rollups.select(1000).getWidth());
+
+		for (int i = 0; i < 200; i++)
+			rollups.record(i, i);
+
+		final Buckets buckets = rollups.select(100).query(0, 199);
+		Assert.assertEquals(2, buckets.size());
+		Assert.assertEquals(0, buckets.getMin(0), 0);
+		Assert.assertEquals(99, buckets.getMax(0), 0);
+		Assert.assertEquals(49.5, buckets.getAvg(0), 0);
+		Assert.assertEquals(199, buckets.getLast(1), 0);
+	}
+
+	@Test
+	public void testRetention()
+	{
+		// 10 ms for 100 ms, 100 ms for 1 s
+		final Rollups rollups = new Rollups(Arrays.asList(new Tier(Duration.ofMillis(10), 10), new Tier(Duration.ofMillis(100), 10)));
+		Assert.assertEquals(10, rollups.select(10, 900, 1000).getWidth());
+		Assert.assertEquals(10, rollups.select(50, 900, 1000).getWidth());
+
+		// the finest tier no longer holds from: next coarser tier
+		Assert.assertEquals(100, rollups.select(10, 899, 1000).getWidth());
+		Assert.assertEquals(100, rollups.select(50, 0, 1000).getWidth());
+
+		// no tier holds from: the range is truncated by the coarsest tier
+		Assert.assertEquals(100, rollups.select(50, -1, 1000).getWidth());
+		Assert.assertEquals(100, rollups.select(50, Long.MIN_VALUE, 1000).getWidth());
+		Assert.assertNull(rollups.select(5, 0, 1000));
+	}
+
+}
@@ -0,0 +1,34 @@
+package org.ortis.mochimo.farm_manager.farm.miner;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ortis.mochimo.farm_manager.farm.miner.SSHProbe.Section;
+
+public class SSHProbeTest
+{
+
+	@Test
+	public void test()
+	{
+		Assert.assertEquals(Section.Cpu, SSHProbe.parseSection(SSHProbe.SECTION_DELIMITER + "Cpu"));
+		Assert.assertEquals(Section.Log, SSHProbe.parseSection(SSHProbe.SECTION_DELIMITER + "Log "));
+		Assert.assertNull(SSHProbe.parseSection("cpu  300 0 100 500 100 0 0 0 0 0"));
+		Assert.assertNull(SSHProbe.parseSection(SSHProbe.SECTION_DELIMITER + "Gpu"));
+		Assert.assertNull(SSHProbe.parseSection(SSHProbe.SECTION_DELIMITER + "cpu"));
+		Assert.assertNull(SSHProbe.parseSection(SSHProbe.SECTION_DELIMITER));
+
+		final SSHProbe probe = new SSHProbe();
+		for (final String line : Arrays.asList("motd", SSHProbe.SECTION_DELIMITER + "Cpu", "cpu  300 0 100 500 100 0 0 0 0 0", SSHProbe.SECTION_DELIMITER + "Gpu",
+				"gpu0 95%", SSHProbe.SECTION_DELIMITER + "Pids", "1234"))
+			Assert.assertTrue(probe.accept(line));
+
+		// lines before the first section and in unknown sections are ignored
+		Assert.assertEquals(Collections.singletonList("cpu  300 0 100 500 100 0 0 0 0 0"), probe.get(Section.Cpu));
+		Assert.assertEquals(Collections.singletonList("1234"), probe.get(Section.Pids));
+		Assert.assertTrue(probe.get(Section.Log).isEmpty());
+	}
+
+}
@@ -0,0 +1,49 @@
+package org.ortis.mochimo.farm_manager.farm.tasks;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TimingWheelTest
+{
+
+	@Test
+	public void test()
+	{
+		// 4 buckets x 3 levels: range of 64 ticks
+		final TimingWheel wheel = new TimingWheel(Duration.ofMillis(1), 2, 3, Logger.getAnonymousLogger());
+
+		final int [] tick = new int [] { 0 };
+		final Map<Integer, Integer> fired = new HashMap<>();
+		final int [] delays = new int [] { 1, 3, 4, 5, 15, 16, 17, 63, 64, 100 };
+		for (final int delay : delays)
+			wheel.schedule(Duration.ofMillis(delay), () -> fired.put(delay, tick[0]));
+
+		final TimingWheel.Timer cancelled = wheel.schedule(Duration.ofMillis(20), () -> fired.put(20, tick[0]));
+		Assert.assertTrue(cancelled.cancel());
+		Assert.assertEquals(delays.length, wheel.size());
+
+		for (tick[0] = 1; tick[0] <= 200; tick[0]++)
+			for (final TimingWheel.Timer timer : wheel.advance())
+				timer.run();
+
+		for (final int delay : delays)
+			Assert.assertEquals(Integer.valueOf(delay), fired.get(delay));
+
+		Assert.assertFalse(fired.containsKey(20));
+		Assert.assertEquals(0, wheel.size());
+
+		// scheduled at tick 200
+		wheel.schedule(Duration.ofMillis(30), () -> fired.put(30, tick[0]));
+		for (; tick[0] <= 260; tick[0]++)
+			for (final TimingWheel.Timer timer : wheel.advance())
+				timer.run();
+
+		Assert.assertEquals(Integer.valueOf(200 + 30), fired.get(30));
+	}
+
+}
@@ -0,0 +1,325 @@
+package org.ortis.mochimo.farm_manager.http;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ortis.mochimo.farm_manager.TestUtils;
+import org.ortis.mochimo.farm_manager.farm.miner.Miner;
+import org.ortis.mochimo.farm_manager.farm.miner.MinerStatistics;
+import org.ortis.mochimo.farm_manager.http.FarmCommandTask.Command;
+import org.ortis.mochimo.farm_manager.http.FarmCommandTask.State;
+import org.ortis.mochimo.farm_manager.network.consensus.NetworkConsensus;
+
+public class FarmCommandTaskTest
+{
+	private final static Duration POLL = Duration.ofMillis(10);
+
+	@Test
+	public void downMinersCountAgainstBudget()
+	{
+		final Farm farm = new Farm();
+		final StubMiner a = farm.add("a", true);
+		final StubMiner b = farm.add("b", true);
+		final StubMiner c = farm.add("c", true);
+		final StubMiner d = farm.add("d", false);// down before the rollout
+
+		final FarmCommandTask task = new FarmCommandTask(farm.miners, Command.RollingRestart, 10, 2, 10, Duration.ofSeconds(5), POLL, TestUtils.getLog());
+		task.run();
+
+		Assert.assertFalse(task.isAborted());
+		Assert.assertEquals(4, task.count(State.Ok));
+		for (final StubMiner miner : Arrays.asList(a, b, c, d))
+			Assert.assertEquals(1, miner.restarts.get());
+
+		// d takes one slot of the budget: one miner restarted at a time
+		Assert.assertEquals(2, farm.maxUnavailable.get());
+		Assert.assertEquals(1, farm.maxRestarting.get());
+	}
+
+	@Test
+	public void waitsWhileBudgetExhausted() throws Exception
+	{
+		final Farm farm = new Farm();
+		final StubMiner a = farm.add("a", true);
+		final StubMiner x = farm.add("x", false);
+
+		final Thread recovery = new Thread(() ->
+		{
+			try
+			{
+				Thread.sleep(200);
+			} catch (final InterruptedException e)
+			{
+				return;
+			}
+			x.recoveredAt = System.nanoTime();
+			x.solving = true;
+		});
+		recovery.start();
+
+		final FarmCommandTask task = new FarmCommandTask(farm.miners, Command.RollingRestart, 10, 1, 10, Duration.ofSeconds(5), POLL, TestUtils.getLog());
+		task.run();
+		recovery.join();
+
+		Assert.assertFalse(task.isAborted());
+		Assert.assertEquals(2, task.count(State.Ok));
+		// a is restarted only once x is solving again
+		Assert.assertTrue(a.restartedAt - x.recoveredAt > 0);
+		Assert.assertEquals(1, farm.maxUnavailable.get());
+	}
+
+	@Test
+	public void abortsAtMaxFailures()
+	{
+		final Farm farm = new Farm();
+		final StubMiner a = farm.add("a", true);
+		a.restartSucceeds = false;
+		final StubMiner b = farm.add("b", true);
+		final StubMiner c = farm.add("c", true);
+
+		final FarmCommandTask task = new FarmCommandTask(farm.miners, Command.RollingRestart, 10, 1, 1, Duration.ofSeconds(5), POLL, TestUtils.getLog());
+		task.run();
+
+		Assert.assertTrue(task.isAborted());
+		Assert.assertTrue(task.isCompleted());
+		Assert.assertEquals(State.Failed, task.getProgress().get("a").getState());
+		Assert.assertEquals("Restart failed", task.getProgress().get("a").getError());
+		Assert.assertEquals(State.Skipped, task.getProgress().get("b").getState());
+		Assert.assertEquals(State.Skipped, task.getProgress().get("c").getState());
+		Assert.assertEquals(0, b.restarts.get() + c.restarts.get());
+	}
+
+	@Test
+	public void abortsAfterRecoveryTimeout()
+	{
+		final Farm farm = new Farm();
+		final StubMiner a = farm.add("a", true);
+		final StubMiner b = farm.add("b", true);
+		farm.add("x", false);// never recovers
+
+		final FarmCommandTask task = new FarmCommandTask(farm.miners, Command.RollingRestart, 10, 1, 10, Duration.ofMillis(200), POLL, TestUtils.getLog());
+		task.run();
+
+		Assert.assertTrue(task.isAborted());
+		Assert.assertEquals(3, task.count(State.Skipped));
+		Assert.assertEquals(0, a.restarts.get() + b.restarts.get());
+	}
+
+	@Test
+	public void recoveryTimeoutFailsWave()
+	{
+		final Farm farm = new Farm();
+		final StubMiner a = farm.add("a", true);
+		a.recovers = false;
+		farm.add("b", true);
+
+		final FarmCommandTask task = new FarmCommandTask(farm.miners, Command.RollingRestart, 10, 2, 1, Duration.ofMillis(200), POLL, TestUtils.getLog());
+		task.run();
+
+		// a is failed once the timeout expires, b of the same wave is not held back
+		Assert.assertEquals(State.Failed, task.getProgress().get("a").getState());
+		Assert.assertEquals(State.Ok, task.getProgress().get("b").getState());
+	}
+
+	@Test
+	public void boundedFanOut()
+	{
+		final Farm farm = new Farm();
+		final List<StubMiner> stubs = new ArrayList<>();
+		for (int i = 0; i < 12; i++)
+			stubs.add(farm.add("m" + i, true));
+		stubs.get(3).restartSucceeds = false;
+		stubs.get(7).restartError = new IllegalStateException("unreachable");
+
+		final FarmCommandTask task = new FarmCommandTask(farm.miners, Command.Restart, 3, Integer.MAX_VALUE, Integer.MAX_VALUE, null, POLL, TestUtils.getLog());
+		task.run();
+
+		Assert.assertTrue(task.isCompleted());
+		Assert.assertTrue(farm.maxRestarting.get() <= 3);
+		for (final StubMiner miner : stubs)
+			Assert.assertEquals(1, miner.restarts.get());
+
+		Assert.assertEquals(10, task.count(State.Ok));
+		Assert.assertEquals(2, task.count(State.Failed));
+		Assert.assertEquals("Restart failed", task.getProgress().get("m3").getError());
+		Assert.assertEquals(State.Failed, task.getProgress().get("m7").getState());
+		Assert.assertEquals("java.lang.IllegalStateException: unreachable", task.getProgress().get("m7").getError());
+		Assert.assertNull(task.getProgress().get("m0").getError());
+	}
+
+	@Test
+	public void parseMaxUnavailable()
+	{
+		Assert.assertEquals(2, FarmCommandTask.parseMaxUnavailable("10pct", 25));// rounded down
+		Assert.assertEquals(1, FarmCommandTask.parseMaxUnavailable("10pct", 5));// at least one miner
+		Assert.assertEquals(1, FarmCommandTask.parseMaxUnavailable("10pct", 0));
+		Assert.assertEquals(7, FarmCommandTask.parseMaxUnavailable("100pct", 7));
+		Assert.assertEquals(3, FarmCommandTask.parseMaxUnavailable(" 10% ", 30));
+		Assert.assertEquals(3, FarmCommandTask.parseMaxUnavailable("3", 100));
+		Assert.assertEquals(30, FarmCommandTask.parseMaxUnavailable("30", 10));
+
+		for (final String invalid : new String[] { "0", "-1", "0pct", "150pct", "10pc", "ten" })
+			try
+			{
+				FarmCommandTask.parseMaxUnavailable(invalid, 10);
+				Assert.fail(invalid);
+			} catch (final IllegalArgumentException e)
+			{
+			}
+	}
+
+	private static class Farm
+	{
+		private final List<Miner> miners = new ArrayList<>();
+		private final List<StubMiner> stubs = new ArrayList<>();
+		private final AtomicInteger restarting = new AtomicInteger();
+		private final AtomicInteger maxRestarting = new AtomicInteger();
+		private final AtomicInteger maxUnavailable = new AtomicInteger();
+
+		private StubMiner add(final String id, final boolean solving)
+		{
+			final StubMiner miner = new StubMiner(this, id, solving);
+			this.miners.add(miner);
+			this.stubs.add(miner);
+			return miner;
+		}
+
+		private synchronized void onRestart()
+		{
+			int unavailable = 0;
+			for (final StubMiner miner : this.stubs)
+				if (!miner.solving)
+					unavailable++;
+			this.maxUnavailable.accumulateAndGet(unavailable, Math::max);
+		}
+	}
+
+	private static class StubMiner implements Miner
+	{
+		private final Farm farm;
+		private final String id;
+		private volatile boolean solving;
+		private volatile boolean restartSucceeds = true;
+		private volatile Exception restartError;
+		private volatile boolean recovers = true;
+		private volatile boolean restarted = false;
+		private volatile long restartedAt;
+		private volatile long recoveredAt;
+		private final AtomicInteger restarts = new AtomicInteger();
+
+		private StubMiner(final Farm farm, final String id, final boolean solving)
+		{
+			this.farm = farm;
+			this.id = id;
+			this.solving = solving;
+		}
+
+		@Override
+		public boolean restart() throws Exception
+		{
+			this.farm.maxRestarting.accumulateAndGet(this.farm.restarting.incrementAndGet(), Math::max);
+			try
+			{
+				this.restartedAt = System.nanoTime();
+				this.restarts.incrementAndGet();
+				if (this.restartError != null)
+					throw this.restartError;
+				if (!this.restartSucceeds)
+					return false;
+
+				this.solving = false;
+				this.restarted = true;
+				this.farm.onRestart();
+				Thread.sleep(20);
+				return true;
+			} finally
+			{
+				this.farm.restarting.decrementAndGet();
+			}
+		}
+
+		@Override
+		public void updateStatistics() throws Exception
+		{
+			if (this.restarted && this.recovers)
+				this.solving = true;
+		}
+
+		@Override
+		public MinerStatistics getStatistics()
+		{
+			final MinerStatistics statistics = new MinerStatistics(this.id, LocalDateTime.now());
+			statistics.setSolving(this.solving);
+			return statistics;
+		}
+
+		@Override
+		public void open()
+		{
+		}
+
+		@Override
+		public void close()
+		{
+		}
+
+		@Override
+		public boolean start() throws Exception
+		{
+			return true;
+		}
+
+		@Override
+		public boolean stop() throws Exception
+		{
+			return true;
+		}
+
+		@Override
+		public boolean isRunning() throws Exception
+		{
+			return this.solving;
+		}
+
+		@Override
+		public boolean isReachable()
+		{
+			return true;
+		}
+
+		@Override
+		public void clearStatistics()
+		{
+		}
+
+		@Override
+		public void checkPolicies(final NetworkConsensus networkConsensus) throws Exception
+		{
+		}
+
+		@Override
+		public String getId()
+		{
+			return this.id;
+		}
+
+		@Override
+		public List<String> getPolicies()
+		{
+			return Collections.emptyList();
+		}
+
+		@Override
+		public String toString()
+		{
+			return this.id;
+		}
+	}
+}
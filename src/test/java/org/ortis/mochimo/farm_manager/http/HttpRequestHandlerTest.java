@@ -0,0 +1,101 @@
+package org.ortis.mochimo.farm_manager.http;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.ortis.mochimo.farm_manager.TestUtils;
+import org.ortis.mochimo.farm_manager.farm.MiningFarm;
+import org.ortis.mochimo.farm_manager.farm.MiningFarmConfig;
+
+@SuppressWarnings("restriction")
+public class HttpRequestHandlerTest
+{
+
+	private MiningFarm farm;
+	private com.sun.net.httpserver.HttpServer server;
+	private String base;
+
+	@Before
+	public void start() throws Exception
+	{
+		this.farm = new MiningFarm(new MiningFarmConfig(null, null, Collections.emptyList(), Collections.emptyList()), Duration.ofSeconds(60), 0.2, 4, 1,
+				Duration.ofSeconds(60), Duration.ofSeconds(60), 1, 1, 5, Duration.ofMinutes(10), 10, Duration.ofSeconds(60), LocalDateTime::now, TestUtils.getLog());
+		this.server = com.sun.net.httpserver.HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		this.server.createContext("/", new HttpRequestHandler(this.farm, null, 2, TestUtils.getLog()));
+		this.server.start();
+		this.base = "http://127.0.0.1:" + this.server.getAddress().getPort();
+	}
+
+	@After
+	public void stop()
+	{
+		this.server.stop(0);
+		this.farm.stop();
+	}
+
+	@Test
+	public void rollingRestart() throws Exception
+	{
+		// the rolling restart example of the README
+		final String readme = new String(Files.readAllBytes(Paths.get("README.md")), StandardCharsets.UTF_8);
+		final Matcher matcher = Pattern.compile("http://localhost:8888(/command\\?id=farm&cmd=rollingrestart\\S*)").matcher(readme);
+		Assert.assertTrue(matcher.find());
+		final String documented = matcher.group(1);
+
+		Assert.assertEquals(200, get(this.base + documented, null).getResponseCode());
+
+		// an escaped percent sign is also accepted
+		Assert.assertEquals(200, get(this.base + "/command?id=farm&cmd=rollingrestart&maxUnavailable=10%25", null).getResponseCode());
+		Assert.assertEquals(400, get(this.base + "/command?id=farm&cmd=rollingrestart&maxUnavailable=10pc", null).getResponseCode());
+	}
+
+	@Test
+	public void statusEntityTag() throws Exception
+	{
+		final HttpURLConnection status = get(this.base + "/status", null);
+		Assert.assertEquals(200, status.getResponseCode());
+		final String entityTag = status.getHeaderField("ETag");
+		Assert.assertNotNull(entityTag);
+
+		// the scheduling and SSH metrics change on every request: they do not invalidate the status
+		Assert.assertEquals(200, get(this.base + "/metrics", null).getResponseCode());
+		Assert.assertEquals(304, get(this.base + "/status", entityTag).getResponseCode());
+		Assert.assertEquals(200, get(this.base + "/status", "\"0-0\"").getResponseCode());
+	}
+
+	private static HttpURLConnection get(final String url, final String entityTag) throws Exception
+	{
+		final HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+		if (entityTag != null)
+			connection.setRequestProperty("If-None-Match", entityTag);
+		try
+		{
+			final int code = connection.getResponseCode();
+			// read the body so that the server is not cut while writing it
+			try (final InputStream in = code < 400 ? connection.getInputStream() : connection.getErrorStream())
+			{
+				while (in != null && in.read() >= 0)
+					;
+			}
+			return connection;
+		} finally
+		{
+			connection.disconnect();
+		}
+	}
+
+}
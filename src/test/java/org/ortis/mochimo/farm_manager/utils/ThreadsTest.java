@@ -0,0 +1,98 @@
+package org.ortis.mochimo.farm_manager.utils;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+public class ThreadsTest
+{
+
+	@After
+	public void reset()
+	{
+		Threads.setVirtualThreads(false);
+	}
+
+	@Test
+	public void platform() throws Exception
+	{
+		final ExecutorService executor = Threads.newExecutor("test", 2);
+		try
+		{
+			Assert.assertFalse(executor.submit(() -> isVirtual(Thread.currentThread())).get(5, TimeUnit.SECONDS));
+		} finally
+		{
+			executor.shutdownNow();
+		}
+
+		final Thread thread = Threads.newThread("test", () -> {
+		});
+		Assert.assertEquals("test", thread.getName());
+		Assert.assertFalse(isVirtual(thread));
+	}
+
+	@Test
+	public void unsupported()
+	{
+		Assume.assumeTrue(featureVersion() < 19);
+		Assert.assertFalse(Threads.isVirtualThreadsSupported());
+		try
+		{
+			Threads.setVirtualThreads(true);
+			Assert.fail();
+		} catch (final IllegalStateException e)
+		{
+		}
+		Assert.assertFalse(Threads.isVirtualThreads());
+	}
+
+	@Test
+	public void virtual() throws Exception
+	{
+		// the reflective path to Thread.ofVirtual() and Executors.newThreadPerTaskExecutor()
+		Assume.assumeTrue(featureVersion() >= 21);
+		Assert.assertTrue(Threads.isVirtualThreadsSupported());
+		Threads.setVirtualThreads(true);
+
+		final ExecutorService executor = Threads.newExecutor("test", 1);
+		try
+		{
+			final Future<Boolean> first = executor.submit(() -> isVirtual(Thread.currentThread()));
+			final Future<String> second = executor.submit(() -> Thread.currentThread().getName());
+			Assert.assertTrue(first.get(5, TimeUnit.SECONDS));
+			Assert.assertTrue(second.get(5, TimeUnit.SECONDS).startsWith("test-"));
+		} finally
+		{
+			executor.shutdownNow();
+		}
+
+		final Thread thread = Threads.newThread("test", () -> {
+		});
+		Assert.assertEquals("test", thread.getName());
+		Assert.assertTrue(isVirtual(thread));
+	}
+
+	private static boolean isVirtual(final Thread thread) throws ReflectiveOperationException
+	{
+		try
+		{
+			return (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+		} catch (final NoSuchMethodException e)
+		{
+			return false;
+		}
+	}
+
+	private static int featureVersion()
+	{
+		// 1.8 before Java 9, then 9, 10...
+		final String version = System.getProperty("java.specification.version");
+		return Integer.parseInt(version.startsWith("1.") ? version.substring(2) : version);
+	}
+
+}